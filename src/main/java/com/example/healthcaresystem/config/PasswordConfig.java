@@ -1,5 +1,7 @@
 package com.example.healthcaresystem.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -14,10 +16,18 @@ public class PasswordConfig {
 
     /**
      * Password encoder bean (uses BCrypt hashing)
-     * Critical for secure password storage
+     * Critical for secure password storage. Hashing runs on a bounded pool sized
+     * to the CPU cores by default; stored hashes below the configured strength
+     * are upgraded on the next successful login.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${security.bcrypt.strength:10}") int strength,
+                                           @Value("${security.bcrypt.pool-size:0}") int poolSize,
+                                           @Value("${security.bcrypt.queue-capacity:64}") int queueCapacity,
+                                           @Value("${security.bcrypt.retry-after-seconds:1}") long retryAfterSeconds) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        return new PooledPasswordEncoder(new BCryptPasswordEncoder(strength), threads, queueCapacity,
+                retryAfterSeconds, meterRegistry);
     }
 }
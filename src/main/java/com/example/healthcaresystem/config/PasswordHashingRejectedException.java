@@ -0,0 +1,34 @@
+package com.example.healthcaresystem.config;
+
+/**
+ * Thrown when the password hashing pool is saturated and cannot accept more work.
+ * Controllers translate it to 503 Service Unavailable with a Retry-After header.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingRejectedException(long retryAfterSeconds) {
+        super("Password hashing capacity exceeded, retry later");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * Finds a rejection anywhere in the cause chain, since Spring Security may
+     * wrap it (e.g. in InternalAuthenticationServiceException).
+     */
+    public static PasswordHashingRejectedException find(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof PasswordHashingRejectedException rejected) {
+                return rejected;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.healthcaresystem.config;
+
+import com.example.healthcaresystem.model.Doctor;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes hit, miss and put counts of the doctor cache regions as
+ * hibernate.second.level.cache.requests{region, result} and
+ * hibernate.second.level.cache.puts{region}.
+ */
+@Component
+public class SecondLevelCacheMetrics implements MeterBinder {
+
+    private static final List<String> REGIONS = List.of(Doctor.CACHE_REGION);
+
+    private final Statistics statistics;
+
+    public SecondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String region : REGIONS) {
+            counter(registry, "hibernate.second.level.cache.requests", region, "hit", CacheRegionStatistics::getHitCount);
+            counter(registry, "hibernate.second.level.cache.requests", region, "miss", CacheRegionStatistics::getMissCount);
+            counter(registry, "hibernate.second.level.cache.puts", region, null, CacheRegionStatistics::getPutCount);
+        }
+    }
+
+    private void counter(MeterRegistry registry, String name, String region, String result,
+                         ToDoubleFunction<CacheRegionStatistics> count) {
+        FunctionCounter.Builder<Statistics> builder = FunctionCounter.builder(name, statistics, stats -> {
+                    // Null until the region has been created
+                    CacheRegionStatistics regionStats = stats.getDomainDataRegionStatistics(region);
+                    return regionStats == null ? 0 : count.applyAsDouble(regionStats);
+                })
+                .tag("region", region);
+        if (result != null) {
+            builder.tag("result", result);
+        }
+        builder.register(registry);
+    }
+}
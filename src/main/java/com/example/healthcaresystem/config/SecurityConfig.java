@@ -13,6 +13,7 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
@@ -51,16 +52,20 @@ public class SecurityConfig {
                 .requestMatchers("/api/doctors", "/api/doctors/*").permitAll() // Allow public access to doctor search
                 
                 // Doctor-specific endpoints
-                .requestMatchers("/api/doctors/*/slots").hasAuthority("ROLE_DOCTOR")
+                .requestMatchers("/api/doctors/*/slots", "/api/doctors/*/slots/**").hasAuthority("ROLE_DOCTOR")
                 .requestMatchers("/api/appointments/doctor/**").hasAuthority("ROLE_DOCTOR")
                 .requestMatchers("/api/appointments/*/prescription", "/api/appointments/*/complete").hasAuthority("ROLE_DOCTOR")
+                .requestMatchers("/api/appointments/export").hasAuthority("ROLE_DOCTOR")
+                // Doctors may bulk-register patients; doctor accounts need an operator role we don't have yet
+                .requestMatchers("/api/auth/import/patients").hasAuthority("ROLE_DOCTOR")
+                .requestMatchers("/api/auth/import/**").denyAll()
                 
                 // Patient-specific endpoints
                 .requestMatchers("/api/appointments/patient/**").hasAuthority("ROLE_PATIENT")
                 .requestMatchers("/api/medical-records/patient/**").hasAuthority("ROLE_PATIENT")
                 
                 // Shared endpoints (both doctors and patients can access)
-                .requestMatchers("/api/appointments/book", "/api/appointments/cancel").hasAnyAuthority("ROLE_DOCTOR", "ROLE_PATIENT")
+                .requestMatchers("/api/appointments/book", "/api/appointments/book/batch", "/api/appointments/cancel").hasAnyAuthority("ROLE_DOCTOR", "ROLE_PATIENT")
                 
                 // All other endpoints require authentication
                 .anyRequest().authenticated()
@@ -88,6 +93,10 @@ public class SecurityConfig {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setUserDetailsService(userDetailsService);
         provider.setPasswordEncoder(passwordEncoder);
+        // Rehash on login when the configured BCrypt cost has been raised
+        if (userDetailsService instanceof UserDetailsPasswordService passwordService) {
+            provider.setUserDetailsPasswordService(passwordService);
+        }
         return provider;
     }
 
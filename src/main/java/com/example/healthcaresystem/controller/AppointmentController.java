@@ -1,29 +1,69 @@
 package com.example.healthcaresystem.controller;
 
+import com.example.healthcaresystem.model.AccountPrincipal;
 import com.example.healthcaresystem.model.Appointment;
+import com.example.healthcaresystem.model.AppointmentSummary;
 import com.example.healthcaresystem.model.Doctor;
 import com.example.healthcaresystem.model.Patient;
+import com.example.healthcaresystem.model.UserAccount;
 import com.example.healthcaresystem.repo.AppointmentRepository;
 import com.example.healthcaresystem.repo.DoctorRepository;
-import com.example.healthcaresystem.repo.PatientRepository;
-
+import com.example.healthcaresystem.service.AppointmentExportService;
+import com.example.healthcaresystem.service.BookingEngine;
+import com.example.healthcaresystem.service.BookingService;
+import com.example.healthcaresystem.service.ClinicalNoteIndex;
+import com.example.healthcaresystem.service.ResourceVersions;
+import com.example.healthcaresystem.service.ScheduleService;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.TreeMap;
 
 @RestController
 @RequestMapping("/api/appointments")
 @CrossOrigin(origins = "*")
 public class AppointmentController {
 
+    private static final int MAX_BATCH_BOOKINGS = 5000;
+    private static final int BATCH_CHUNK_SIZE = 500;
+
+    // Page sizes for cursor-paginated history
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    // Bounds for doctor schedule reads
+    private static final int DEFAULT_SCHEDULE_DAYS = 7;
+    private static final int MAX_SCHEDULE_DAYS = 93;
+    private static final int MAX_SCHEDULE_ROWS = 2000;
+
+    // Most ranked hits returned by one notes search
+    private static final int MAX_SEARCH_RESULTS = 100;
+
     @Autowired
     private AppointmentRepository appointmentRepository;
 
@@ -31,7 +71,25 @@ public class AppointmentController {
     private DoctorRepository doctorRepository;
 
     @Autowired
-    private PatientRepository patientRepository;
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingEngine bookingEngine;
+
+    @Autowired
+    private AppointmentExportService exportService;
+
+    @Autowired
+    private ClinicalNoteIndex noteIndex;
+
+    @Autowired
+    private ScheduleService scheduleService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ResourceVersions versions;
 
     @PostMapping("/book")
     public ResponseEntity<?> bookAppointment(@RequestBody Map<String, Object> request) {
@@ -48,51 +106,88 @@ public class AppointmentController {
             // Parse appointment time
             LocalDateTime appointmentTime = LocalDateTime.parse(appointmentTimeStr);
 
-            // Validate appointment time is in the future
-            if (appointmentTime.isBefore(LocalDateTime.now())) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Appointment time must be in the future"));
-            }
+            // Queue on the doctor's booking lane; the slot is claimed and the appointment saved in its next batch
+            Appointment appointment = bookingEngine.book(patientId, doctorId, appointmentTime);
 
-            // Check if doctor and patient exist
-            Optional<Doctor> doctor = doctorRepository.findById(doctorId);
-            Optional<Patient> patient = patientRepository.findById(patientId);
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Appointment booked successfully");
+            response.put("appointmentId", appointment.getId());
+            response.put("doctorName", appointment.getDoctor().getName());
+            response.put("patientName", appointment.getPatient().getName());
+            response.put("appointmentTime", appointmentTime);
 
-            if (doctor.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Doctor not found"));
-            }
-            if (patient.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Patient not found"));
-            }
+            return ResponseEntity.ok(response);
 
-            // Check for double booking
-            boolean isDoubleBooked = appointmentRepository.existsByDoctorAndAppointmentTimeAndStatus(
-                doctor.get(), appointmentTime, Appointment.Status.SCHEDULED);
-            
-            if (isDoubleBooked) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Doctor is already booked at this time"));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Failed to book appointment: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/book/batch")
+    public ResponseEntity<?> bookAppointments(@RequestBody List<Map<String, Object>> request) {
+        try {
+            if (request.size() > MAX_BATCH_BOOKINGS) {
+                return ResponseEntity.badRequest().body(Map.of("error", "At most " + MAX_BATCH_BOOKINGS + " bookings per request"));
             }
 
-            // Create appointment
-            Appointment appointment = new Appointment();
-            appointment.setDoctor(doctor.get());
-            appointment.setPatient(patient.get());
-            appointment.setAppointmentTime(appointmentTime);
-            appointment.setStatus(Appointment.Status.SCHEDULED);
+            // Parse every item up front; malformed items fail individually
+            List<Map<String, Object>> results = new ArrayList<>(request.size());
+            List<BookingService.BookingRequest> bookings = new ArrayList<>();
+            List<Integer> positions = new ArrayList<>();
+            for (int i = 0; i < request.size(); i++) {
+                Map<String, Object> item = request.get(i);
+                results.add(null);
+                try {
+                    bookings.add(new BookingService.BookingRequest(
+                            Long.valueOf(item.get("patientId").toString()),
+                            Long.valueOf(item.get("doctorId").toString()),
+                            LocalDateTime.parse(item.get("appointmentTime").toString())));
+                    positions.add(i);
+                } catch (Exception e) {
+                    results.set(i, batchItem(i, null, "patientId, doctorId, and appointmentTime are required"));
+                }
+            }
 
-            appointmentRepository.save(appointment);
+            // Validate and insert in chunks, each in one transaction with batched statements
+            int booked = 0;
+            for (int from = 0; from < bookings.size(); from += BATCH_CHUNK_SIZE) {
+                int to = Math.min(from + BATCH_CHUNK_SIZE, bookings.size());
+                List<BookingService.BookingResult> chunk = bookingService.bookBatch(bookings.subList(from, to));
+                for (int k = 0; k < chunk.size(); k++) {
+                    BookingService.BookingResult result = chunk.get(k);
+                    int index = positions.get(from + k);
+                    results.set(index, batchItem(index, result.isBooked() ? result.appointment().getId() : null, result.error()));
+                    if (result.isBooked()) {
+                        booked++;
+                    }
+                }
+            }
 
             Map<String, Object> response = new HashMap<>();
-            response.put("message", "Appointment booked successfully");
-            response.put("appointmentId", appointment.getId());
-            response.put("doctorName", doctor.get().getName());
-            response.put("patientName", patient.get().getName());
-            response.put("appointmentTime", appointmentTime);
+            response.put("booked", booked);
+            response.put("failed", request.size() - booked);
+            response.put("results", results);
 
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Failed to book appointment: " + e.getMessage()));
+            return ResponseEntity.badRequest().body(Map.of("error", "Failed to book appointments: " + e.getMessage()));
+        }
+    }
+
+    private static Map<String, Object> batchItem(int index, Long appointmentId, String error) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("index", index);
+        if (appointmentId != null) {
+            item.put("status", "BOOKED");
+            item.put("appointmentId", appointmentId);
+        } else {
+            item.put("status", "FAILED");
+            item.put("error", error);
         }
+        return item;
     }
 
     @PostMapping("/cancel")
@@ -100,101 +195,302 @@ public class AppointmentController {
         try {
             Long appointmentId = Long.valueOf(request.get("appointmentId").toString());
 
-            Optional<Appointment> appointment = appointmentRepository.findById(appointmentId);
-            if (appointment.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Appointment not found"));
-            }
-
-            Appointment apt = appointment.get();
-            
-            // Check if appointment is already cancelled or completed
-            if (apt.getStatus() != Appointment.Status.SCHEDULED) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Appointment cannot be cancelled"));
-            }
-
-            // Cancel the appointment
-            apt.setStatus(Appointment.Status.CANCELLED);
-            appointmentRepository.save(apt);
+            // Cancel the appointment and reopen its slot
+            Appointment cancelled = bookingService.cancel(appointmentId);
+            bookingEngine.slotReleased(cancelled.getDoctor().getId(), cancelled.getAppointmentTime());
 
             return ResponseEntity.ok(Map.of("message", "Appointment cancelled successfully"));
 
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", "Failed to cancel appointment: " + e.getMessage()));
         }
     }
 
     @GetMapping("/patient/{patientId}")
-    public ResponseEntity<?> getPatientAppointments(@PathVariable Long patientId) {
+    public ResponseEntity<?> getPatientAppointments(
+            @PathVariable Long patientId,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean count,
+            WebRequest webRequest) {
         try {
-            Optional<Patient> patient = patientRepository.findById(patientId);
-            if (patient.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Patient not found"));
+            // Pollers holding the current tag get a 304 without any query
+            String etag = versions.patientAppointmentsTag(patientId);
+            if (webRequest.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
             }
 
-            List<Appointment> appointments = appointmentRepository.findByPatientOrderByAppointmentTimeDesc(patient.get());
-            
             Map<String, Object> response = new HashMap<>();
             response.put("patientId", patientId);
-            response.put("patientName", patient.get().getName());
-            response.put("appointments", appointments);
 
-            return ResponseEntity.ok(response);
+            if (after == null && size == null) {
+                ScheduleService.AppointmentListing<Patient> listing = scheduleService.allPatientAppointments(patientId);
+                response.put("patientName", listing.owner().getName());
+                response.put("appointments", listing.appointments().getContent());
+                return ResponseEntity.ok().eTag(etag).body(response);
+            }
 
+            // Cursor mode: seek past the last (time, id) seen, no OFFSET and no COUNT unless asked
+            Pageable pageable = cursorPage(size);
+            PageCursor.TimeAndId last = after == null || after.isEmpty() ? null : PageCursor.timeAndIdOf(after);
+            ScheduleService.AppointmentListing<Patient> listing = scheduleService.patientHistory(patientId,
+                    last != null ? last.time() : null, last != null ? last.id() : null, pageable, count);
+            response.put("patientName", listing.owner().getName());
+            putSlice(response, listing.appointments());
+            if (count) {
+                response.put("totalItems", listing.totalItems());
+            }
+
+            return ResponseEntity.ok().eTag(etag).body(response);
+
+        } catch (NoSuchElementException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", "Failed to get patient appointments: " + e.getMessage()));
         }
     }
 
     @GetMapping("/doctor/{doctorId}")
-    public ResponseEntity<?> getDoctorSchedule(@PathVariable Long doctorId) {
+    public ResponseEntity<?> getDoctorSchedule(
+            @PathVariable Long doctorId,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean count,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String groupBy) {
         try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("doctorId", doctorId);
+
+            ScheduleService.AppointmentListing<Doctor> listing;
+            if (from != null || to != null || status != null || groupBy != null) {
+                listing = putScheduleWindow(response, doctorId, from, to, status, groupBy);
+            } else if (after == null && size == null) {
+                // Unbounded listing: the most recent appointments only
+                listing = scheduleService.doctorHistory(doctorId, null, null, PageRequest.of(0, MAX_SCHEDULE_ROWS), false);
+                response.put("appointments", listing.appointments().getContent());
+                response.put("truncated", listing.appointments().hasNext());
+            } else {
+                Pageable pageable = cursorPage(size);
+                PageCursor.TimeAndId last = after == null || after.isEmpty() ? null : PageCursor.timeAndIdOf(after);
+                listing = scheduleService.doctorHistory(doctorId,
+                        last != null ? last.time() : null, last != null ? last.id() : null, pageable, count);
+                putSlice(response, listing.appointments());
+                if (count) {
+                    response.put("totalItems", listing.totalItems());
+                }
+            }
+            response.put("doctorName", listing.owner().getName());
+            response.put("specialization", listing.owner().getSpecialization());
+
+            return ResponseEntity.ok(response);
+
+        } catch (NoSuchElementException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Failed to get doctor schedule: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Appointments in [from, to) in time order, optionally of one status and
+     * grouped into day or week buckets. Dates without a time cover whole days;
+     * the window defaults to the week starting today.
+     */
+    private ScheduleService.AppointmentListing<Doctor> putScheduleWindow(Map<String, Object> response, Long doctorId,
+                                                                         String from, String to, String status, String groupBy) {
+        LocalDateTime start = from != null ? parseBound(from, false) : LocalDate.now().atStartOfDay();
+        LocalDateTime end = to != null ? parseBound(to, true) : start.plusDays(DEFAULT_SCHEDULE_DAYS);
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        if (ChronoUnit.DAYS.between(start, end) > MAX_SCHEDULE_DAYS) {
+            throw new IllegalArgumentException("Schedule window cannot exceed " + MAX_SCHEDULE_DAYS + " days");
+        }
+        Appointment.Status statusFilter = status != null ? Appointment.Status.valueOf(status.toUpperCase()) : null;
+        if (groupBy != null && !groupBy.equals("day") && !groupBy.equals("week")) {
+            throw new IllegalArgumentException("groupBy must be day or week");
+        }
+
+        ScheduleService.AppointmentListing<Doctor> listing = scheduleService.doctorWindow(
+                doctorId, start, end, statusFilter, PageRequest.of(0, MAX_SCHEDULE_ROWS));
+        Slice<AppointmentSummary> appointments = listing.appointments();
+
+        response.put("from", start);
+        response.put("to", end);
+        response.put("truncated", appointments.hasNext());
+        if (groupBy == null) {
+            response.put("appointments", appointments.getContent());
+            return listing;
+        }
+
+        Map<LocalDate, List<AppointmentSummary>> buckets = new TreeMap<>();
+        for (AppointmentSummary appointment : appointments) {
+            LocalDate day = appointment.appointmentTime().toLocalDate();
+            LocalDate bucket = groupBy.equals("week") ? day.with(DayOfWeek.MONDAY) : day;
+            buckets.computeIfAbsent(bucket, key -> new ArrayList<>()).add(appointment);
+        }
+        List<Map<String, Object>> grouped = new ArrayList<>();
+        buckets.forEach((bucket, items) -> grouped.add(Map.of(
+                "start", bucket,
+                "count", items.size(),
+                "appointments", items)));
+        response.put("groupBy", groupBy);
+        response.put("buckets", grouped);
+        return listing;
+    }
+
+    @GetMapping("/doctor/{doctorId}/notes/search")
+    public ResponseEntity<?> searchDoctorNotes(
+            @PathVariable Long doctorId,
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit,
+            @AuthenticationPrincipal AccountPrincipal principal) {
+        try {
+            // Clinical notes are only searchable by the doctor who wrote them
+            if (!isDoctor(principal, doctorId)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                        .body(Map.of("error", "Doctors can only search their own notes"));
+            }
+            if (q.isBlank()) {
+                return ResponseEntity.badRequest().body(Map.of("error", "q is required"));
+            }
+            if (limit <= 0 || limit > MAX_SEARCH_RESULTS) {
+                return ResponseEntity.badRequest().body(Map.of("error", "limit must be between 1 and " + MAX_SEARCH_RESULTS));
+            }
+
             Optional<Doctor> doctor = doctorRepository.findById(doctorId);
             if (doctor.isEmpty()) {
                 return ResponseEntity.badRequest().body(Map.of("error", "Doctor not found"));
             }
 
-            List<Appointment> appointments = appointmentRepository.findByDoctorOrderByAppointmentTimeDesc(doctor.get());
-            
+            // Ranked by the in-memory notes index; only the hits are loaded, in one query
+            List<ClinicalNoteIndex.Hit> hits = noteIndex.search(doctorId, q, limit);
+            Map<Long, AppointmentSummary> byId = new HashMap<>();
+            if (!hits.isEmpty()) {
+                for (AppointmentSummary summary : appointmentRepository.findSummariesByIds(
+                        hits.stream().map(ClinicalNoteIndex.Hit::appointmentId).toList())) {
+                    byId.put(summary.id(), summary);
+                }
+            }
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (ClinicalNoteIndex.Hit hit : hits) {
+                AppointmentSummary summary = byId.get(hit.appointmentId());
+                if (summary != null) {
+                    results.add(Map.of("score", hit.score(), "appointment", summary));
+                }
+            }
+
             Map<String, Object> response = new HashMap<>();
             response.put("doctorId", doctorId);
-            response.put("doctorName", doctor.get().getName());
-            response.put("specialization", doctor.get().getSpecialization());
-            response.put("appointments", appointments);
+            response.put("query", q);
+            response.put("results", results);
 
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Failed to get doctor schedule: " + e.getMessage()));
+            return ResponseEntity.badRequest().body(Map.of("error", "Failed to search notes: " + e.getMessage()));
         }
     }
 
+    // A bare date means the start of that day, or the end of it for an upper bound
+    private static LocalDateTime parseBound(String value, boolean upper) {
+        if (value.length() == 10) {
+            LocalDate day = LocalDate.parse(value);
+            return upper ? day.plusDays(1).atStartOfDay() : day.atStartOfDay();
+        }
+        return LocalDateTime.parse(value);
+    }
+
+    private static Pageable cursorPage(Integer size) {
+        int pageSize = size != null ? size : DEFAULT_PAGE_SIZE;
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return PageRequest.of(0, pageSize);
+    }
+
+    private static void putSlice(Map<String, Object> response, Slice<AppointmentSummary> appointments) {
+        List<AppointmentSummary> content = appointments.getContent();
+        AppointmentSummary last = content.isEmpty() ? null : content.get(content.size() - 1);
+        response.put("appointments", content);
+        response.put("hasNext", appointments.hasNext());
+        response.put("nextCursor", appointments.hasNext() && last != null
+            ? PageCursor.ofTimeAndId(last.appointmentTime(), last.id()) : null);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAppointments(
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @AuthenticationPrincipal AccountPrincipal principal) {
+        try {
+            // Doctors export their own appointments only; doctorId may be left out
+            Long exportDoctorId = doctorId != null || principal == null ? doctorId : principal.getEntityId();
+            if (!isDoctor(principal, exportDoctorId)) {
+                return exportError(HttpStatus.FORBIDDEN, "Doctors can only export their own appointments");
+            }
+            LocalDateTime start = parseBound(from, false);
+            LocalDateTime end = parseBound(to, true);
+            if (!start.isBefore(end)) {
+                return exportError("from must be before to");
+            }
+            AppointmentExportService.Format exportFormat = AppointmentExportService.Format.valueOf(format.toUpperCase());
+
+            // Rows go straight from the result set to the client; nothing is buffered in full
+            StreamingResponseBody body = out -> exportService.export(start, end, exportDoctorId, exportFormat, out);
+            return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"appointments." + exportFormat.getExtension() + "\"")
+                .body(body);
+
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return exportError("Invalid export request: " + e.getMessage());
+        }
+    }
+
+    // True when the caller is signed in as the doctor with this id
+    private static boolean isDoctor(AccountPrincipal principal, Long doctorId) {
+        return principal != null && principal.getRole() == UserAccount.Role.DOCTOR
+                && doctorId.equals(principal.getEntityId());
+    }
+
+    // Streaming endpoints can only return a stream, so errors are written as the usual JSON body
+    private ResponseEntity<StreamingResponseBody> exportError(String message) {
+        return exportError(HttpStatus.BAD_REQUEST, message);
+    }
+
+    private ResponseEntity<StreamingResponseBody> exportError(HttpStatus status, String message) {
+        return ResponseEntity.status(status)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(out -> out.write(objectMapper.writeValueAsBytes(Map.of("error", message))));
+    }
+
     @PostMapping("/{id}/prescription")
     public ResponseEntity<?> addPrescription(
             @PathVariable Long id,
             @RequestBody Map<String, String> request) {
         try {
-            Optional<Appointment> appointment = appointmentRepository.findById(id);
-            if (appointment.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Appointment not found"));
-            }
-
-            Appointment apt = appointment.get();
-            
-            // Check if appointment is completed
-            if (apt.getStatus() != Appointment.Status.COMPLETED) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Can only add prescription to completed appointments"));
-            }
-
             String prescription = request.get("prescription");
             if (prescription == null || prescription.trim().isEmpty()) {
                 return ResponseEntity.badRequest().body(Map.of("error", "Prescription is required"));
             }
 
-            apt.setNotes(prescription);
-            appointmentRepository.save(apt);
+            // Only completed appointments take a prescription; checked and written in one transaction
+            Appointment apt = bookingService.addPrescription(id, prescription);
+            noteIndex.put(apt.getId(), apt.getDoctor().getId(), prescription);
 
             return ResponseEntity.ok(Map.of("message", "Prescription added successfully"));
 
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", "Failed to add prescription: " + e.getMessage()));
         }
@@ -203,23 +499,12 @@ public class AppointmentController {
     @PostMapping("/{id}/complete")
     public ResponseEntity<?> completeAppointment(@PathVariable Long id) {
         try {
-            Optional<Appointment> appointment = appointmentRepository.findById(id);
-            if (appointment.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Appointment not found"));
-            }
-
-            Appointment apt = appointment.get();
-            
-            // Check if appointment is scheduled
-            if (apt.getStatus() != Appointment.Status.SCHEDULED) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Only scheduled appointments can be completed"));
-            }
-
-            apt.setStatus(Appointment.Status.COMPLETED);
-            appointmentRepository.save(apt);
+            bookingService.complete(id);
 
             return ResponseEntity.ok(Map.of("message", "Appointment completed successfully"));
 
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", "Failed to complete appointment: " + e.getMessage()));
         }
@@ -1,25 +1,38 @@
 package com.example.healthcaresystem.controller;
 
+import com.example.healthcaresystem.config.PasswordHashingRejectedException;
+import com.example.healthcaresystem.model.AccountPrincipal;
 import com.example.healthcaresystem.model.AuthRequest;
 import com.example.healthcaresystem.model.Doctor;
 import com.example.healthcaresystem.model.Patient;
-import com.example.healthcaresystem.repo.DoctorRepository;
-import com.example.healthcaresystem.repo.PatientRepository;
+import com.example.healthcaresystem.model.UserAccount;
+import com.example.healthcaresystem.service.ImportRowReader;
 import com.example.healthcaresystem.service.JwtService;
 import com.example.healthcaresystem.service.UnifiedUserDetailsService;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -36,10 +49,7 @@ public class AuthController {
     private AuthenticationManager authenticationManager;
 
     @Autowired
-    private DoctorRepository doctorRepository;
-
-    @Autowired
-    private PatientRepository patientRepository;
+    private ObjectMapper objectMapper;
 
     @PostMapping("/register/patient")
     public ResponseEntity<?> registerPatient(@RequestBody Map<String, String> request) {
@@ -55,6 +65,12 @@ public class AuthController {
                 return ResponseEntity.badRequest().body(Map.of("error", "All fields are required"));
             }
 
+            // Same checks as each row of a bulk import
+            String invalid = UnifiedUserDetailsService.validateRegistration(UserAccount.Role.PATIENT, request);
+            if (invalid != null) {
+                return ResponseEntity.badRequest().body(Map.of("error", invalid));
+            }
+
             // Check if email already exists
             if (unifiedUserDetailsService.emailExists(email)) {
                 return ResponseEntity.badRequest().body(Map.of("error", "Email already exists"));
@@ -77,6 +93,10 @@ public class AuthController {
             return ResponseEntity.ok(Map.of("message", "Patient registered successfully"));
 
         } catch (Exception e) {
+            PasswordHashingRejectedException rejected = PasswordHashingRejectedException.find(e);
+            if (rejected != null) {
+                return serviceBusy(rejected);
+            }
             return ResponseEntity.badRequest().body(Map.of("error", "Registration failed: " + e.getMessage()));
         }
     }
@@ -95,6 +115,12 @@ public class AuthController {
                 return ResponseEntity.badRequest().body(Map.of("error", "All fields are required"));
             }
 
+            // Same checks as each row of a bulk import
+            String invalid = UnifiedUserDetailsService.validateRegistration(UserAccount.Role.DOCTOR, request);
+            if (invalid != null) {
+                return ResponseEntity.badRequest().body(Map.of("error", invalid));
+            }
+
             // Check if email already exists
             if (unifiedUserDetailsService.emailExists(email)) {
                 return ResponseEntity.badRequest().body(Map.of("error", "Email already exists"));
@@ -114,10 +140,85 @@ public class AuthController {
             return ResponseEntity.ok(Map.of("message", "Doctor registered successfully"));
 
         } catch (Exception e) {
+            PasswordHashingRejectedException rejected = PasswordHashingRejectedException.find(e);
+            if (rejected != null) {
+                return serviceBusy(rejected);
+            }
             return ResponseEntity.badRequest().body(Map.of("error", "Registration failed: " + e.getMessage()));
         }
     }
 
+    /**
+     * Bulk registration from a CSV (with header row) or NDJSON upload, one
+     * account per row with the same fields as single registration. Progress,
+     * per-row errors and a final summary are streamed back as NDJSON.
+     */
+    @PostMapping("/import/{kind}")
+    public ResponseEntity<StreamingResponseBody> importAccounts(@PathVariable String kind, HttpServletRequest request) {
+        UserAccount.Role role = switch (kind) {
+            case "doctors" -> UserAccount.Role.DOCTOR;
+            case "patients" -> UserAccount.Role.PATIENT;
+            default -> null;
+        };
+        if (role == null) {
+            return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> out.write(objectMapper.writeValueAsBytes(Map.of("error", "Import kind must be doctors or patients"))));
+        }
+        String contentType = request.getContentType();
+        ImportRowReader.Format format = contentType != null && contentType.contains("csv")
+            ? ImportRowReader.Format.CSV : ImportRowReader.Format.NDJSON;
+
+        StreamingResponseBody body = out -> {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+            UnifiedUserDetailsService.ImportListener listener = new UnifiedUserDetailsService.ImportListener() {
+                @Override
+                public void rowFailed(UnifiedUserDetailsService.ImportRow row, String error) {
+                    Map<String, Object> event = new HashMap<>();
+                    event.put("line", row.line());
+                    event.put("email", row.fields().get("email"));
+                    event.put("error", error);
+                    writeEvent(out, event);
+                }
+
+                @Override
+                public void chunkCommitted(long processed, long imported) {
+                    writeEvent(out, Map.of("progress", Map.of("processed", processed, "imported", imported)));
+                    flush(out);
+                }
+            };
+            try {
+                UnifiedUserDetailsService.ImportResult result = unifiedUserDetailsService.importAccounts(
+                        role, new ImportRowReader(reader, format, objectMapper), listener);
+                writeEvent(out, Map.of("done", Map.of(
+                        "processed", result.processed(),
+                        "imported", result.imported(),
+                        "failed", result.failed())));
+            } catch (RuntimeException e) {
+                // Chunks committed so far stay imported; report where it stopped
+                writeEvent(out, Map.of("error", "Import aborted: " + e.getMessage()));
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
+    private void writeEvent(OutputStream out, Map<String, ?> event) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(event));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void flush(OutputStream out) {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @PostMapping("/login")
     public ResponseEntity<?> authenticateAndGetToken(@RequestBody AuthRequest authRequest) {
         try {
@@ -126,32 +227,37 @@ public class AuthController {
             );
 
             if (authentication.isAuthenticated()) {
-                String token = jwtService.generateToken(authRequest.getUsername());
+                // Role, id and name come from the directory entry loaded during authentication
+                AccountPrincipal principal = (AccountPrincipal) authentication.getPrincipal();
+                String token = jwtService.generateToken(principal.getUsername(),
+                        principal.getRole().getAuthority(), principal.getEntityId());
+
                 Map<String, Object> response = new HashMap<>();
                 response.put("token", token);
                 response.put("username", authRequest.getUsername());
-                
-                // Get user info to determine role and name
-                Optional<Doctor> doctor = doctorRepository.findByEmail(authRequest.getUsername());
-                Optional<Patient> patient = patientRepository.findByEmail(authRequest.getUsername());
-                
-                if (doctor.isPresent()) {
-                    response.put("role", "ROLE_DOCTOR");
-                    response.put("name", doctor.get().getName());
-                } else if (patient.isPresent()) {
-                    response.put("role", "ROLE_PATIENT");
-                    response.put("name", patient.get().getName());
-                }
+                response.put("role", principal.getRole().getAuthority());
+                response.put("name", principal.getDisplayName());
                 
                 return ResponseEntity.ok(response);
             } else {
                 return ResponseEntity.badRequest().body(Map.of("error", "Invalid credentials"));
             }
         } catch (Exception e) {
+            PasswordHashingRejectedException rejected = PasswordHashingRejectedException.find(e);
+            if (rejected != null) {
+                return serviceBusy(rejected);
+            }
             return ResponseEntity.badRequest().body(Map.of("error", "Authentication failed: " + e.getMessage()));
         }
     }
 
+    // Password hashing pool is saturated: tell the client to back off instead of queueing
+    private ResponseEntity<?> serviceBusy(PasswordHashingRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage()));
+    }
+
     @GetMapping("/welcome")
     public ResponseEntity<?> welcome() {
         return ResponseEntity.ok(Map.of("message", "Welcome to Healthcare System API"));
@@ -1,71 +1,228 @@
 package com.example.healthcaresystem.controller;
 
 import com.example.healthcaresystem.model.Doctor;
-import com.example.healthcaresystem.model.DoctorAvailableSlot;
 import com.example.healthcaresystem.repo.DoctorRepository;
-import com.example.healthcaresystem.repo.DoctorAvailableSlotRepository;
+import com.example.healthcaresystem.service.AvailabilityService;
+import com.example.healthcaresystem.service.DoctorResponseCache;
+import com.example.healthcaresystem.service.DoctorSearchIndex;
+import com.example.healthcaresystem.service.ResourceVersions;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Optional;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/doctors")
 @CrossOrigin(origins = "*")
 public class DoctorController {
 
+    // Window searched for earliest slots when no end is given
+    private static final int DEFAULT_SEARCH_DAYS = 30;
+
+    // Largest page served in cursor mode
+    private static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private DoctorRepository doctorRepository;
 
     @Autowired
-    private DoctorAvailableSlotRepository slotRepository;
+    private AvailabilityService availabilityService;
+
+    @Autowired
+    private DoctorSearchIndex searchIndex;
+
+    @Autowired
+    private DoctorResponseCache responseCache;
+
+    @Autowired
+    private ResourceVersions versions;
 
     @GetMapping
     public ResponseEntity<?> searchDoctors(
             @RequestParam(required = false) String specialization,
+            @RequestParam(required = false) String name,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false") boolean count) {
         
         try {
-            Pageable pageable = PageRequest.of(page, size);
-            Page<Doctor> doctors;
-            
-            if (specialization != null && !specialization.trim().isEmpty()) {
-                doctors = doctorRepository.findBySpecializationContainingIgnoreCase(specialization, pageable);
-            } else {
-                doctors = doctorRepository.findAll(pageable);
+            // Public and hot: served as cached JSON bytes, keyed by the normalized parameters
+            String key = after != null
+                    ? cacheKey("after", specialization, name, after, size, count)
+                    : cacheKey("page", specialization, name, page, size);
+            byte[] body = responseCache.get(key, () -> after != null
+                    ? searchDoctorsAfter(specialization, name, after, size, count)
+                    : searchDoctorsPage(specialization, name, page, size));
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Failed to search doctors: " + e.getMessage()));
+        }
+    }
+
+    private Map<String, Object> searchDoctorsPage(String specialization, String name, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size);
+        Page<Doctor> doctors;
+
+        if ((specialization != null && !specialization.trim().isEmpty()) || (name != null && !name.trim().isEmpty())) {
+            // Resolve matches in the search index, then load just this page by primary key
+            List<Long> ids = searchIndex.search(specialization, name);
+            int from = (int) Math.min(pageable.getOffset(), ids.size());
+            List<Long> pageIds = ids.subList(from, Math.min(from + size, ids.size()));
+            Map<Long, Doctor> byId = doctorRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(Doctor::getId, Function.identity()));
+            List<Doctor> content = pageIds.stream().map(byId::get).filter(Objects::nonNull).toList();
+            doctors = new PageImpl<>(content, pageable, ids.size());
+        } else {
+            doctors = doctorRepository.findAll(pageable);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("doctors", doctors.getContent());
+        response.put("currentPage", doctors.getNumber());
+        response.put("totalItems", doctors.getTotalElements());
+        response.put("totalPages", doctors.getTotalPages());
+        response.put("hasNext", doctors.hasNext());
+        response.put("hasPrevious", doctors.hasPrevious());
+        return response;
+    }
+
+    // Search terms are matched trimmed and case-insensitively, so they're keyed that way; values are URL-encoded so keys can't collide
+    private static String cacheKey(String mode, String specialization, String name, Object... rest) {
+        StringBuilder key = new StringBuilder(mode)
+                .append('?').append(URLEncoder.encode(searchTerm(specialization), StandardCharsets.UTF_8))
+                .append('&').append(URLEncoder.encode(searchTerm(name), StandardCharsets.UTF_8));
+        for (Object value : rest) {
+            key.append('&').append(URLEncoder.encode(String.valueOf(value), StandardCharsets.UTF_8));
+        }
+        return key.toString();
+    }
+
+    private static String searchTerm(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Cursor mode of the doctor listing: the page after the last doctor id seen
+     * (an empty cursor starts from the beginning). Costs the same at any depth
+     * and only counts when asked to.
+     */
+    private Map<String, Object> searchDoctorsAfter(String specialization, String name, String after, int size, boolean count) {
+        if (size <= 0 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        Long lastId = after.isEmpty() ? null : PageCursor.idOf(after);
+
+        List<Doctor> content;
+        boolean hasNext;
+        Long total = null;
+        if ((specialization != null && !specialization.trim().isEmpty()) || (name != null && !name.trim().isEmpty())) {
+            List<Long> ids = searchIndex.search(specialization, name);
+            int from = 0;
+            if (lastId != null) {
+                int position = Collections.binarySearch(ids, lastId);
+                from = position >= 0 ? position + 1 : -position - 1;
             }
-            
+            List<Long> pageIds = ids.subList(from, Math.min(from + size, ids.size()));
+            Map<Long, Doctor> byId = doctorRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(Doctor::getId, Function.identity()));
+            content = pageIds.stream().map(byId::get).filter(Objects::nonNull).toList();
+            hasNext = from + size < ids.size();
+            total = (long) ids.size();
+        } else {
+            Slice<Doctor> slice = doctorRepository.findByIdGreaterThanOrderById(
+                    lastId != null ? lastId : 0L, PageRequest.of(0, size));
+            content = slice.getContent();
+            hasNext = slice.hasNext();
+            if (count) {
+                total = doctorRepository.count();
+            }
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("doctors", content);
+        response.put("hasNext", hasNext);
+        response.put("nextCursor", hasNext && !content.isEmpty() ? PageCursor.ofId(content.get(content.size() - 1).getId()) : null);
+        if (count) {
+            response.put("totalItems", total);
+        }
+        return response;
+    }
+
+    @GetMapping("/earliest-slots")
+    public ResponseEntity<?> getEarliestSlots(
+            @RequestParam String specialization,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            if (specialization.trim().isEmpty()) {
+                return ResponseEntity.badRequest().body(Map.of("error", "specialization is required"));
+            }
+            LocalDateTime start = from != null ? LocalDateTime.parse(from) : LocalDateTime.now();
+            LocalDateTime end = to != null ? LocalDateTime.parse(to) : start.plusDays(DEFAULT_SEARCH_DAYS);
+
+            List<Map<String, Object>> slots = availabilityService.earliestOpenSlots(specialization, start, end, limit).stream()
+                .map(slot -> Map.<String, Object>of(
+                        "doctorId", slot.doctorId(),
+                        "doctorName", slot.doctorName(),
+                        "availableTime", slot.availableTime()))
+                .toList();
+
             Map<String, Object> response = new HashMap<>();
-            response.put("doctors", doctors.getContent());
-            response.put("currentPage", doctors.getNumber());
-            response.put("totalItems", doctors.getTotalElements());
-            response.put("totalPages", doctors.getTotalPages());
-            response.put("hasNext", doctors.hasNext());
-            response.put("hasPrevious", doctors.hasPrevious());
-            
+            response.put("specialization", specialization);
+            response.put("from", start);
+            response.put("to", end);
+            response.put("slots", slots);
+
             return ResponseEntity.ok(response);
-            
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Failed to search doctors: " + e.getMessage()));
+            return ResponseEntity.badRequest().body(Map.of("error", "Failed to find earliest slots: " + e.getMessage()));
         }
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getDoctorById(@PathVariable Long id) {
+    public ResponseEntity<?> getDoctorById(@PathVariable Long id, WebRequest webRequest) {
         try {
-            Optional<Doctor> doctor = doctorRepository.findById(id);
-            if (doctor.isPresent()) {
-                return ResponseEntity.ok(doctor.get());
+            // Tag first, so the body can't be newer than the tag it's served with
+            String etag = versions.doctorTag(id);
+            if (webRequest.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+            // Keyed by the tag, so a profile cached before another instance changed the row isn't served under the new tag
+            byte[] body = responseCache.get("doctor/" + etag, () -> doctorRepository.findById(id).orElse(null));
+            if (body != null) {
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).eTag(etag).body(body);
             } else {
                 return ResponseEntity.notFound().build();
             }
@@ -75,24 +232,31 @@ public class DoctorController {
     }
 
     @GetMapping("/{id}/availability")
-    public ResponseEntity<?> getDoctorAvailability(@PathVariable Long id) {
+    public ResponseEntity<?> getDoctorAvailability(@PathVariable Long id, WebRequest webRequest) {
         try {
-            Optional<Doctor> doctor = doctorRepository.findById(id);
-            if (doctor.isEmpty()) {
-                return ResponseEntity.notFound().build();
+            // Pollers holding the current tag get a 304 without any query
+            LocalDateTime now = LocalDateTime.now();
+            String etag = versions.availabilityTag(id, now);
+            if (webRequest.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
             }
 
-            List<DoctorAvailableSlot> availableSlots = slotRepository
-                .findByDoctorAndAvailableTimeAfter(doctor.get(), LocalDateTime.now());
+            // Served from the per-day availability bitmaps, one load shared by concurrent pollers
+            AvailabilityService.DoctorAvailability availability = availabilityService.sharedAvailability(id, now, etag);
+            List<Map<String, Object>> availableSlots = availability.openTimes().stream()
+                .map(time -> Map.<String, Object>of("availableTime", time))
+                .toList();
             
             Map<String, Object> response = new HashMap<>();
             response.put("doctorId", id);
-            response.put("doctorName", doctor.get().getName());
-            response.put("specialization", doctor.get().getSpecialization());
+            response.put("doctorName", availability.doctor().getName());
+            response.put("specialization", availability.doctor().getSpecialization());
             response.put("availableSlots", availableSlots);
             
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().eTag(etag).body(response);
             
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", "Failed to get availability: " + e.getMessage()));
         }
@@ -103,33 +267,74 @@ public class DoctorController {
             @PathVariable Long id,
             @RequestBody Map<String, String> request) {
         try {
-            Optional<Doctor> doctor = doctorRepository.findById(id);
-            if (doctor.isEmpty()) {
-                return ResponseEntity.notFound().build();
-            }
-
             String timeStr = request.get("availableTime");
             if (timeStr == null) {
                 return ResponseEntity.badRequest().body(Map.of("error", "availableTime is required"));
             }
 
             LocalDateTime availableTime = LocalDateTime.parse(timeStr);
-            
-            // Check if slot already exists
-            if (slotRepository.existsByDoctorAndAvailableTime(doctor.get(), availableTime)) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Slot already exists for this time"));
-            }
-
-            DoctorAvailableSlot slot = new DoctorAvailableSlot();
-            slot.setDoctor(doctor.get());
-            slot.setAvailableTime(availableTime);
-            
-            slotRepository.save(slot);
+            availabilityService.addSlot(id, availableTime);
             
             return ResponseEntity.ok(Map.of("message", "Available slot added successfully"));
             
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", "Failed to add slot: " + e.getMessage()));
         }
     }
+
+    @PostMapping("/{id}/slots/template")
+    public ResponseEntity<?> applyScheduleTemplate(
+            @PathVariable Long id,
+            @RequestBody Map<String, Object> request) {
+        try {
+            if (request.get("weekdays") == null || request.get("startTime") == null || request.get("endTime") == null
+                    || request.get("slotMinutes") == null || request.get("fromDate") == null || request.get("toDate") == null) {
+                return ResponseEntity.badRequest().body(Map.of("error",
+                        "weekdays, startTime, endTime, slotMinutes, fromDate and toDate are required"));
+            }
+
+            Set<DayOfWeek> weekdays = EnumSet.noneOf(DayOfWeek.class);
+            for (Object day : (List<?>) request.get("weekdays")) {
+                weekdays.add(DayOfWeek.valueOf(day.toString().toUpperCase()));
+            }
+            Set<LocalDate> exceptions = new HashSet<>();
+            if (request.get("exceptions") != null) {
+                for (Object date : (List<?>) request.get("exceptions")) {
+                    exceptions.add(LocalDate.parse(date.toString()));
+                }
+            }
+
+            AvailabilityService.ScheduleTemplate template = new AvailabilityService.ScheduleTemplate(
+                    weekdays,
+                    LocalTime.parse(request.get("startTime").toString()),
+                    LocalTime.parse(request.get("endTime").toString()),
+                    Integer.parseInt(request.get("slotMinutes").toString()),
+                    LocalDate.parse(request.get("fromDate").toString()),
+                    LocalDate.parse(request.get("toDate").toString()),
+                    exceptions);
+
+            AvailabilityService.TemplateResult result = availabilityService.applyTemplate(id, template);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Schedule template applied");
+            response.put("createdCount", result.created().size());
+            response.put("skippedCount", result.skippedExisting().size() + result.skippedPast().size());
+            response.put("created", result.created());
+            response.put("skippedExisting", result.skippedExisting());
+            response.put("skippedPast", result.skippedPast());
+
+            return ResponseEntity.ok(response);
+
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Failed to apply schedule template: " + e.getMessage()));
+        }
+    }
 }
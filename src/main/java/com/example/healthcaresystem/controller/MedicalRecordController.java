@@ -1,57 +1,86 @@
 package com.example.healthcaresystem.controller;
 
-import com.example.healthcaresystem.model.Appointment;
+import com.example.healthcaresystem.model.AppointmentSummary;
+import com.example.healthcaresystem.model.MedicalHistoryEntry;
 import com.example.healthcaresystem.model.Patient;
-import com.example.healthcaresystem.repo.AppointmentRepository;
-import com.example.healthcaresystem.repo.PatientRepository;
+import com.example.healthcaresystem.service.MedicalHistoryService;
+import com.example.healthcaresystem.service.MedicalRecordService;
+import com.example.healthcaresystem.service.ScheduleService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.NoSuchElementException;
 
 @RestController
 @RequestMapping("/api/medical-records")
 @CrossOrigin(origins = "*")
 public class MedicalRecordController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    // Latest history entries embedded in the medical records response
+    private static final int HISTORY_PREVIEW_SIZE = 5;
+
+    @Autowired
+    private MedicalRecordService medicalRecordService;
+
     @Autowired
-    private PatientRepository patientRepository;
+    private ScheduleService scheduleService;
 
     @Autowired
-    private AppointmentRepository appointmentRepository;
+    private MedicalHistoryService medicalHistoryService;
 
     @GetMapping("/patient/{patientId}")
-    public ResponseEntity<?> getPatientMedicalRecords(@PathVariable Long patientId) {
+    public ResponseEntity<?> getPatientMedicalRecords(
+            @PathVariable Long patientId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean count) {
         try {
-            Optional<Patient> patient = patientRepository.findById(patientId);
-            if (patient.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Patient not found"));
+            if (size <= 0 || size > MAX_PAGE_SIZE) {
+                return ResponseEntity.badRequest().body(Map.of("error", "size must be between 1 and " + MAX_PAGE_SIZE));
             }
 
-            List<Appointment> appointments = appointmentRepository.findByPatientOrderByAppointmentTimeDesc(patient.get());
-            
-            // Filter appointments that have notes/prescriptions or are completed
-            List<Appointment> medicalRecords = appointments.stream()
-                .filter(apt -> apt.getStatus() == Appointment.Status.COMPLETED && 
-                              apt.getNotes() != null && !apt.getNotes().trim().isEmpty())
-                .toList();
+            // Completed appointments with notes, filtered and paged by the database
+            Pageable pageable = PageRequest.of(0, size);
+            PageCursor.TimeAndId last = after == null || after.isEmpty() ? null : PageCursor.timeAndIdOf(after);
+            MedicalRecordService.MedicalRecords records = medicalRecordService.records(patientId,
+                    last != null ? last.time() : null, last != null ? last.id() : null, pageable, count,
+                    HISTORY_PREVIEW_SIZE);
+            Patient patient = records.patient();
+            List<AppointmentSummary> content = records.records().getContent();
+            AppointmentSummary lastRecord = content.isEmpty() ? null : content.get(content.size() - 1);
 
             Map<String, Object> response = new HashMap<>();
             response.put("patientId", patientId);
-            response.put("patientName", patient.get().getName());
-            response.put("patientEmail", patient.get().getEmail());
-            response.put("patientPhone", patient.get().getPhone());
-            response.put("patientDob", patient.get().getDob());
-            response.put("medicalHistory", patient.get().getMedicalHistory());
-            response.put("medicalRecords", medicalRecords);
+            response.put("patientName", patient.getName());
+            response.put("patientEmail", patient.getEmail());
+            response.put("patientPhone", patient.getPhone());
+            response.put("patientDob", patient.getDob());
+            // medicalHistory stays the full current text; the changes behind it are listed separately
+            response.put("medicalHistory", records.medicalHistory());
+            response.put("medicalHistoryEntries", records.history().getContent());
+            response.put("medicalHistoryHasMore", records.history().hasNext());
+            response.put("medicalRecords", content);
+            response.put("hasNext", records.records().hasNext());
+            response.put("nextCursor", records.records().hasNext() && lastRecord != null
+                ? PageCursor.ofTimeAndId(lastRecord.appointmentTime(), lastRecord.id()) : null);
+            if (count) {
+                response.put("totalItems", records.totalItems());
+            }
 
             return ResponseEntity.ok(response);
 
+        } catch (NoSuchElementException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", "Failed to get medical records: " + e.getMessage()));
         }
@@ -60,46 +89,81 @@ public class MedicalRecordController {
     @GetMapping("/patient/{patientId}/appointments")
     public ResponseEntity<?> getAllPatientAppointments(@PathVariable Long patientId) {
         try {
-            Optional<Patient> patient = patientRepository.findById(patientId);
-            if (patient.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Patient not found"));
-            }
-
-            List<Appointment> appointments = appointmentRepository.findByPatientOrderByAppointmentTimeDesc(patient.get());
+            ScheduleService.AppointmentListing<Patient> listing = scheduleService.allPatientAppointments(patientId);
             
             Map<String, Object> response = new HashMap<>();
             response.put("patientId", patientId);
-            response.put("patientName", patient.get().getName());
-            response.put("appointments", appointments);
+            response.put("patientName", listing.owner().getName());
+            response.put("appointments", listing.appointments().getContent());
 
             return ResponseEntity.ok(response);
 
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", "Failed to get appointments: " + e.getMessage()));
         }
     }
 
+    @GetMapping("/patient/{patientId}/medical-history")
+    public ResponseEntity<?> getMedicalHistory(
+            @PathVariable Long patientId,
+            @RequestParam(required = false) Integer before,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            if (size <= 0 || size > MAX_PAGE_SIZE) {
+                return ResponseEntity.badRequest().body(Map.of("error", "size must be between 1 and " + MAX_PAGE_SIZE));
+            }
+
+            // Newest first; pass nextBefore back as before for older entries
+            Slice<MedicalHistoryEntry> history = medicalRecordService.history(patientId, before, size);
+            List<MedicalHistoryEntry> entries = history.getContent();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("patientId", patientId);
+            response.put("entries", entries);
+            response.put("hasNext", history.hasNext());
+            response.put("nextBefore", history.hasNext() && !entries.isEmpty()
+                ? entries.get(entries.size() - 1).getVersion() : null);
+
+            return ResponseEntity.ok(response);
+
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Failed to get medical history: " + e.getMessage()));
+        }
+    }
+
     @PutMapping("/patient/{patientId}/medical-history")
     public ResponseEntity<?> updateMedicalHistory(
             @PathVariable Long patientId,
-            @RequestBody Map<String, String> request) {
+            @RequestBody Map<String, Object> request) {
         try {
-            Optional<Patient> patient = patientRepository.findById(patientId);
-            if (patient.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Patient not found"));
+            // The text becomes the current history as a new version; earlier versions are kept
+            Object medicalHistory = request.get("medicalHistory");
+            if (medicalHistory == null || medicalHistory.toString().isBlank()) {
+                return ResponseEntity.badRequest().body(Map.of("error", "medicalHistory is required"));
             }
 
-            String medicalHistory = request.get("medicalHistory");
-            if (medicalHistory == null) {
-                return ResponseEntity.badRequest().body(Map.of("error", "medicalHistory is required"));
+            Integer expectedVersion = null;
+            if (request.get("expectedVersion") != null) {
+                expectedVersion = Integer.valueOf(request.get("expectedVersion").toString());
             }
 
-            Patient pat = patient.get();
-            pat.setMedicalHistory(medicalHistory);
-            patientRepository.save(pat);
+            MedicalHistoryEntry entry = medicalHistoryService.append(patientId, medicalHistory.toString(), expectedVersion);
 
-            return ResponseEntity.ok(Map.of("message", "Medical history updated successfully"));
+            return ResponseEntity.ok(Map.of(
+                "message", "Medical history updated successfully",
+                "version", entry.getVersion()
+            ));
 
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "expectedVersion must be a number"));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Medical history was updated concurrently, please retry"));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", "Failed to update medical history: " + e.getMessage()));
         }
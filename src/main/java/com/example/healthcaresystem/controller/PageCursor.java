@@ -0,0 +1,63 @@
+package com.example.healthcaresystem.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset-pagination tokens. A cursor is the sort key of the last row
+ * a client has seen, so the next page starts with an indexed range seek
+ * instead of an OFFSET scan. Clients treat the value as an opaque string.
+ */
+final class PageCursor {
+
+    private static final String SEPARATOR = ",";
+
+    private PageCursor() {}
+
+    // Sort key of a row ordered by (time, id)
+    record TimeAndId(LocalDateTime time, Long id) {}
+
+    static String ofId(Long id) {
+        return encode(id.toString());
+    }
+
+    static String ofTimeAndId(LocalDateTime time, Long id) {
+        return encode(time + SEPARATOR + id);
+    }
+
+    /**
+     * Throws IllegalArgumentException if the token wasn't issued by {@link #ofId}.
+     */
+    static Long idOf(String token) {
+        try {
+            return Long.valueOf(decode(token));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Throws IllegalArgumentException if the token wasn't issued by {@link #ofTimeAndId}.
+     */
+    static TimeAndId timeAndIdOf(String token) {
+        try {
+            String[] keys = decode(token).split(SEPARATOR, -1);
+            if (keys.length == 2) {
+                return new TimeAndId(LocalDateTime.parse(keys[0]), Long.valueOf(keys[1]));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid cursor");
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String token) {
+        return new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+    }
+}
@@ -1,48 +1,75 @@
 package com.example.healthcaresystem.filter;
 
+import com.example.healthcaresystem.model.AccountPrincipal;
+import com.example.healthcaresystem.model.UserAccount;
 import com.example.healthcaresystem.service.JwtService;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
 
+    private static final int MAX_TRACKED_USERS = 10_000;
+
     private final UserDetailsService userDetailsService;
     private final JwtService jwtService;
 
+    // Trust role/account claims from the verified token instead of loading the user
+    private final boolean stateless;
+
+    // When > 0, stateless principals are re-checked against the database at most once per TTL
+    private final long revalidateTtlMillis;
+
+    // username -> time of last successful revalidation
+    private final Map<String, Long> lastRevalidated = new ConcurrentHashMap<>();
+
     @Autowired
-    public JwtAuthFilter(UserDetailsService userDetailsService, JwtService jwtService) {
+    public JwtAuthFilter(UserDetailsService userDetailsService, JwtService jwtService,
+                         @Value("${security.jwt.stateless:true}") boolean stateless,
+                         @Value("${security.jwt.revalidate-ttl-seconds:0}") long revalidateTtlSeconds) {
         this.userDetailsService = userDetailsService;
         this.jwtService = jwtService;
+        this.stateless = stateless;
+        this.revalidateTtlMillis = revalidateTtlSeconds * 1000;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         String authHeader = request.getHeader("Authorization");
-        String token = null;
+        Claims claims = null;
         String username = null;
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
-            username = jwtService.extractUsername(token);
+            // Verify the token once and reuse the claims below
+            claims = jwtService.parseToken(authHeader.substring(7));
+            username = claims.getSubject();
         }
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            if (jwtService.validateToken(token, userDetails)) {
+            String role = stateless ? claims.get(JwtService.ROLE_CLAIM, String.class) : null;
+            UserDetails userDetails = role != null
+                    ? statelessPrincipal(username, role, claims.get(JwtService.ACCOUNT_ID_CLAIM, Long.class))
+                    : userDetailsService.loadUserByUsername(username);
+
+            if (userDetails != null && jwtService.validateToken(claims, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -53,4 +80,49 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    // Streaming responses finish on an async dispatch, which must be authenticated too
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    /**
+     * Builds the principal straight from the token's claims. Returns null if the
+     * optional revalidation finds the account gone or its role changed.
+     */
+    private UserDetails statelessPrincipal(String username, String role, Long accountId) {
+        if (revalidateTtlMillis > 0 && !revalidate(username, role)) {
+            return null;
+        }
+        return new AccountPrincipal(username, "", UserAccount.Role.fromAuthority(role), accountId, null);
+    }
+
+    private boolean revalidate(String username, String role) {
+        long now = System.currentTimeMillis();
+        Long last = lastRevalidated.get(username);
+        if (last != null && now - last < revalidateTtlMillis) {
+            return true;
+        }
+
+        try {
+            UserDetails current = userDetailsService.loadUserByUsername(username);
+            boolean roleMatches = current.getAuthorities().stream()
+                    .anyMatch(authority -> authority.getAuthority().equals(role));
+            if (!roleMatches) {
+                lastRevalidated.remove(username);
+                return false;
+            }
+        } catch (UsernameNotFoundException e) {
+            lastRevalidated.remove(username);
+            return false;
+        }
+
+        // Drop stale entries so the map tracks only recently active users
+        if (lastRevalidated.size() >= MAX_TRACKED_USERS) {
+            lastRevalidated.values().removeIf(time -> now - time >= revalidateTtlMillis);
+        }
+        lastRevalidated.put(username, now);
+        return true;
+    }
 }
@@ -0,0 +1,43 @@
+package com.example.healthcaresystem.model;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.List;
+
+/**
+ * Authenticated user with the role, backing entity id and display name
+ * resolved from the account directory (or from a role-carrying JWT).
+ */
+public class AccountPrincipal extends User {
+
+    private static final long serialVersionUID = 1L;
+
+    private final UserAccount.Role role;
+    private final Long entityId;
+    private final String displayName;
+
+    public AccountPrincipal(String email, String password, UserAccount.Role role, Long entityId, String displayName) {
+        super(email, password, List.of(new SimpleGrantedAuthority(role.getAuthority())));
+        this.role = role;
+        this.entityId = entityId;
+        this.displayName = displayName;
+    }
+
+    public static AccountPrincipal of(UserAccount account) {
+        return new AccountPrincipal(account.getEmail(), account.getPasswordHash(), account.getRole(),
+                account.getEntityId(), account.getDisplayName());
+    }
+
+    public UserAccount.Role getRole() {
+        return role;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -2,16 +2,27 @@ package com.example.healthcaresystem.model;
 
 import java.time.LocalDateTime;
 
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_appointment_patient_time", columnList = "patient_id, appointment_time, id"),
+        @Index(name = "idx_appointment_doctor_time", columnList = "doctor_id, appointment_time, id"),
+        @Index(name = "idx_appointment_patient_status_time", columnList = "patient_id, status, appointment_time, id"),
+        @Index(name = "idx_appointment_time", columnList = "appointment_time, id")
+})
 public class Appointment {
 
     @Id
@@ -31,8 +42,15 @@ public class Appointment {
     @Enumerated(EnumType.STRING)
     private Status status;
 
+    // Deflate-compressed when large; blank notes are stored as null
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(columnDefinition = "MEDIUMBLOB")
     private String notes;
 
+    // Row version the patient's appointment list ETag is derived from; not serialized
+    @Version
+    private long version;
+
     public enum Status {
         SCHEDULED, CANCELLED, COMPLETED
     }
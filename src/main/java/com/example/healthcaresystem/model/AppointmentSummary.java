@@ -0,0 +1,24 @@
+package com.example.healthcaresystem.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read model for appointment listings, selected with one JOIN query instead
+ * of serializing the entity graph. Keeps the {@code doctor}/{@code patient}
+ * nesting of the old entity JSON, but only with the fields listings show.
+ */
+public record AppointmentSummary(Long id, LocalDateTime appointmentTime, Appointment.Status status, String notes,
+                                 DoctorInfo doctor, PatientInfo patient) {
+
+    public record DoctorInfo(Long id, String name, String specialization) {}
+
+    public record PatientInfo(Long id, String name) {}
+
+    // Flat constructor for JPQL "select new" expressions
+    public AppointmentSummary(Long id, LocalDateTime appointmentTime, Appointment.Status status, String notes,
+                              Long doctorId, String doctorName, String doctorSpecialization,
+                              Long patientId, String patientName) {
+        this(id, appointmentTime, status, notes,
+                new DoctorInfo(doctorId, doctorName, doctorSpecialization), new PatientInfo(patientId, patientName));
+    }
+}
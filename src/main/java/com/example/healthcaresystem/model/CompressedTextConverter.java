@@ -0,0 +1,113 @@
+package com.example.healthcaresystem.model;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Stores large clinical text Deflate-compressed in a binary column.
+ * Compressed values start with {@link #DEFLATE_HEADER}, a byte that never
+ * occurs in UTF-8, so anything else is read as plain UTF-8 text: legacy rows
+ * written before compression, and values under the size threshold or that
+ * don't shrink. Blank text is stored as null.
+ */
+@Component
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, byte[]> {
+
+    public static final byte DEFLATE_HEADER = (byte) 0xFF;
+
+    private final int minBytes;
+    private final Timer compressTimer;
+    private final Timer decompressTimer;
+    private final Counter rawBytes;
+    private final Counter storedBytes;
+
+    public CompressedTextConverter(@Value("${storage.compression.min-bytes:256}") int minBytes,
+                                   MeterRegistry meterRegistry) {
+        this.minBytes = minBytes;
+        this.compressTimer = Timer.builder("storage.compression.duration").tag("operation", "compress").register(meterRegistry);
+        this.decompressTimer = Timer.builder("storage.compression.duration").tag("operation", "decompress").register(meterRegistry);
+        this.rawBytes = Counter.builder("storage.compression.bytes").tag("kind", "raw").register(meterRegistry);
+        this.storedBytes = Counter.builder("storage.compression.bytes").tag("kind", "stored").register(meterRegistry);
+    }
+
+    @Override
+    public byte[] convertToDatabaseColumn(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        byte[] stored = raw.length < minBytes ? raw : compressTimer.record(() -> compress(raw));
+        rawBytes.increment(raw.length);
+        storedBytes.increment(stored.length);
+        return stored;
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] stored) {
+        if (stored == null) {
+            return null;
+        }
+        if (!isCompressed(stored)) {
+            return new String(stored, StandardCharsets.UTF_8);
+        }
+        return decompressTimer.record(() -> decompress(stored));
+    }
+
+    public static boolean isCompressed(byte[] stored) {
+        return stored.length > 0 && stored[0] == DEFLATE_HEADER;
+    }
+
+    // Header byte plus raw Deflate output; the plain bytes when that isn't smaller
+    private static byte[] compress(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+            out.write(DEFLATE_HEADER);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+                if (out.size() >= raw.length) {
+                    return raw;
+                }
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static String decompress(byte[] stored) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(stored, 1, stored.length - 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(stored.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated compressed text");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed text", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
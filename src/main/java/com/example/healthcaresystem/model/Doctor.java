@@ -1,18 +1,28 @@
 package com.example.healthcaresystem.model;
 
-import java.util.ArrayList;
-import java.util.List;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
-import jakarta.persistence.CascadeType;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.OneToMany;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
+@Table(indexes = @Index(name = "idx_doctor_specialization", columnList = "specialization"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Doctor.CACHE_REGION)
 public class Doctor {
 
+    // Second-level cache region; its size is set in application.conf
+    public static final String CACHE_REGION = "doctor";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -21,10 +31,14 @@ public class Doctor {
     private String specialization;
     private String email;
     private String phone;
+
+    // Never serialized; entities are still returned by some endpoints
+    @JsonIgnore
     private String password;
 
-    @OneToMany(mappedBy = "doctor", cascade = CascadeType.ALL, orphanRemoval = true)
-    private List<DoctorAvailableSlot> availableSlots = new ArrayList<>();
+    // Row version the profile's ETag is derived from; not part of the profile
+    @Version
+    private long version;
 
     // Constructors
     public Doctor() {}
@@ -85,13 +99,5 @@ public class Doctor {
     public void setPassword(String password) {
         this.password = password;
     }
-
-    public List<DoctorAvailableSlot> getAvailableSlots() {
-        return availableSlots;
-    }
-
-    public void setAvailableSlots(List<DoctorAvailableSlot> availableSlots) {
-        this.availableSlots = availableSlots;
-    }
 }
 
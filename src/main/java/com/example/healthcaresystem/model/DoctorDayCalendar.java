@@ -0,0 +1,204 @@
+package com.example.healthcaresystem.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
+
+/**
+ * One doctor's slots for one day as two bitmaps of 96 fifteen-minute slots:
+ * the open bits and the booked bits. A slot exists if either bit is set and
+ * never has both. Slots 0-47 (00:00-11:45) live in the low word and 48-95
+ * (12:00-23:45) in the high word. Only 48 bits of each long are used so
+ * database bitwise results always fit a signed BIGINT.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_calendar_doctor_day", columnNames = {"doctor_id", "calendar_day"}))
+public class DoctorDayCalendar {
+
+    public static final int SLOT_MINUTES = 15;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    public static final int BITS_PER_WORD = SLOTS_PER_DAY / 2;
+    public static final long WORD_MASK = (1L << BITS_PER_WORD) - 1;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "doctor_id")
+    private Doctor doctor;
+
+    @Column(name = "calendar_day", nullable = false)
+    private LocalDate day;
+
+    @Column(nullable = false)
+    private long openLow;
+
+    @Column(nullable = false)
+    private long openHigh;
+
+    @Column(nullable = false)
+    private long bookedLow;
+
+    @Column(nullable = false)
+    private long bookedHigh;
+
+    // Bumped by every write, including the bulk updates in DoctorDayCalendarRepository
+    @Version
+    private long version;
+
+    // Constructors
+    public DoctorDayCalendar() {}
+
+    public DoctorDayCalendar(Doctor doctor, LocalDate day, long openLow, long openHigh) {
+        this.doctor = doctor;
+        this.day = day;
+        this.openLow = openLow;
+        this.openHigh = openHigh;
+    }
+
+    /**
+     * True if the time falls exactly on a slot boundary of the calendar grid.
+     */
+    public static boolean isOnGrid(LocalDateTime time) {
+        return time.getMinute() % SLOT_MINUTES == 0 && time.getSecond() == 0 && time.getNano() == 0;
+    }
+
+    public static int slotIndex(LocalTime time) {
+        return (time.getHour() * 60 + time.getMinute()) / SLOT_MINUTES;
+    }
+
+    // Bit for the slot within openLow, or 0 if the slot lives in openHigh
+    public static long lowBit(int slotIndex) {
+        return slotIndex < BITS_PER_WORD ? 1L << slotIndex : 0L;
+    }
+
+    // Bit for the slot within openHigh, or 0 if the slot lives in openLow
+    public static long highBit(int slotIndex) {
+        return slotIndex < BITS_PER_WORD ? 0L : 1L << (slotIndex - BITS_PER_WORD);
+    }
+
+    public boolean isOpen(LocalTime time) {
+        int index = slotIndex(time);
+        return ((openLow & lowBit(index)) | (openHigh & highBit(index))) != 0;
+    }
+
+    public boolean isBooked(LocalTime time) {
+        int index = slotIndex(time);
+        return ((bookedLow & lowBit(index)) | (bookedHigh & highBit(index))) != 0;
+    }
+
+    /**
+     * Moves an open slot to booked. Returns false if the slot isn't open.
+     */
+    public boolean claim(LocalTime time) {
+        if (!isOpen(time)) {
+            return false;
+        }
+        int index = slotIndex(time);
+        openLow &= ~lowBit(index);
+        openHigh &= ~highBit(index);
+        bookedLow |= lowBit(index);
+        bookedHigh |= highBit(index);
+        return true;
+    }
+
+    /**
+     * Start times of every slot of this day, open or booked, in ascending order.
+     */
+    public List<LocalDateTime> slotTimes() {
+        List<LocalDateTime> times = new ArrayList<>();
+        collect(openLow | bookedLow, 0, times);
+        collect(openHigh | bookedHigh, BITS_PER_WORD, times);
+        return times;
+    }
+
+    /**
+     * Open slot start times of this day, in ascending order.
+     */
+    public List<LocalDateTime> openTimes() {
+        List<LocalDateTime> times = new ArrayList<>(Long.bitCount(openLow) + Long.bitCount(openHigh));
+        collect(openLow, 0, times);
+        collect(openHigh, BITS_PER_WORD, times);
+        return times;
+    }
+
+    private void collect(long word, int offset, List<LocalDateTime> times) {
+        while (word != 0) {
+            int bit = Long.numberOfTrailingZeros(word);
+            times.add(day.atStartOfDay().plusMinutes((long) (offset + bit) * SLOT_MINUTES));
+            word &= word - 1;
+        }
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Doctor getDoctor() {
+        return doctor;
+    }
+
+    public void setDoctor(Doctor doctor) {
+        this.doctor = doctor;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+
+    public long getOpenLow() {
+        return openLow;
+    }
+
+    public void setOpenLow(long openLow) {
+        this.openLow = openLow;
+    }
+
+    public long getOpenHigh() {
+        return openHigh;
+    }
+
+    public void setOpenHigh(long openHigh) {
+        this.openHigh = openHigh;
+    }
+
+    public long getBookedLow() {
+        return bookedLow;
+    }
+
+    public void setBookedLow(long bookedLow) {
+        this.bookedLow = bookedLow;
+    }
+
+    public long getBookedHigh() {
+        return bookedHigh;
+    }
+
+    public void setBookedHigh(long bookedHigh) {
+        this.bookedHigh = bookedHigh;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.healthcaresystem.model;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * One append-only change to a patient's medical history. Entries are never
+ * updated; each carries the next per-patient version, so the history is read
+ * newest first a page at a time instead of as one ever-growing blob on the
+ * patient row. An APPEND entry holds only the text added to the previous
+ * version; a REPLACE entry holds the whole text. The current text is the
+ * latest REPLACE entry followed by the APPEND entries after it.
+ */
+@Entity
+@Table(name = "medical_history_entry",
+       uniqueConstraints = @UniqueConstraint(name = "uk_history_patient_version", columnNames = {"patient_id", "version"}))
+public class MedicalHistoryEntry {
+
+    public enum Kind {
+        REPLACE, APPEND
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "patient_id", nullable = false, updatable = false)
+    private Patient patient;
+
+    @Column(nullable = false, updatable = false)
+    private int version;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false)
+    private Kind kind;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(columnDefinition = "MEDIUMBLOB", nullable = false, updatable = false)
+    private String content;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public MedicalHistoryEntry() {}
+
+    public MedicalHistoryEntry(Patient patient, int version, Kind kind, String content, LocalDateTime createdAt) {
+        this.patient = patient;
+        this.version = version;
+        this.kind = kind;
+        this.content = content;
+        this.createdAt = createdAt;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Patient getPatient() {
+        return patient;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -2,7 +2,8 @@ package com.example.healthcaresystem.model;
 
 import java.time.LocalDate;
 
-import jakarta.persistence.Column;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -19,10 +20,10 @@ public class Patient {
     private String email;
     private String phone;
     private LocalDate dob;
-    private String password;
 
-    @Column(columnDefinition = "TEXT")
-    private String medicalHistory;
+    // Never serialized; entities are still returned by some endpoints
+    @JsonIgnore
+    private String password;
 
     // Constructors
     public Patient() {}
@@ -83,13 +84,5 @@ public class Patient {
     public void setPassword(String password) {
         this.password = password;
     }
-
-    public String getMedicalHistory() {
-        return medicalHistory;
-    }
-
-    public void setMedicalHistory(String medicalHistory) {
-        this.medicalHistory = medicalHistory;
-    }
 }
 
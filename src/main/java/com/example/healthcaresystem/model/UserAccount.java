@@ -0,0 +1,112 @@
+package com.example.healthcaresystem.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * Directory entry for every login account, keyed by unique email.
+ * Mirrors the credentials of the backing Doctor or Patient row so
+ * authentication resolves a user with a single indexed lookup.
+ */
+@Entity
+@Table(name = "user_account", uniqueConstraints = @UniqueConstraint(name = "uk_user_account_email", columnNames = "email"))
+public class UserAccount {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String email;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Role role;
+
+    // Id of the Doctor or Patient row this account belongs to
+    @Column(nullable = false)
+    private Long entityId;
+
+    private String displayName;
+
+    private String passwordHash;
+
+    public enum Role {
+        DOCTOR, PATIENT;
+
+        public String getAuthority() {
+            return "ROLE_" + name();
+        }
+
+        public static Role fromAuthority(String authority) {
+            return Role.valueOf(authority.substring("ROLE_".length()));
+        }
+    }
+
+    // Constructors
+    public UserAccount() {}
+
+    public UserAccount(String email, Role role, Long entityId, String displayName, String passwordHash) {
+        this.email = email;
+        this.role = role;
+        this.entityId = entityId;
+        this.displayName = displayName;
+        this.passwordHash = passwordHash;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    public void setRole(Role role) {
+        this.role = role;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public void setDisplayName(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getPasswordHash() {
+        return passwordHash;
+    }
+
+    public void setPasswordHash(String passwordHash) {
+        this.passwordHash = passwordHash;
+    }
+}
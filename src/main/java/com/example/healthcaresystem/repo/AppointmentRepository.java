@@ -1,13 +1,23 @@
 package com.example.healthcaresystem.repo;
 
 import com.example.healthcaresystem.model.Appointment;
+import com.example.healthcaresystem.model.AppointmentSummary;
 import com.example.healthcaresystem.model.Doctor;
 import com.example.healthcaresystem.model.Patient;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
@@ -19,4 +29,74 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     boolean existsByDoctorAndAppointmentTimeAndStatus(Doctor doctor, LocalDateTime appointmentTime, Appointment.Status status);
     
     List<Appointment> findByDoctorAndAppointmentTimeBetween(Doctor doctor, LocalDateTime start, LocalDateTime end);
+
+    // "rows.maxId.versions" of a patient's appointments: inserts raise the max id, updates raise
+    // the version sum, and deletes lower the count, so any change gives a value not seen before
+    @Query("select concat(cast(count(a) as String), '.', cast(coalesce(max(a.id), 0) as String), '.', " +
+           "cast(coalesce(sum(a.version), 0) as String)) from Appointment a where a.patient.id = :patientId")
+    String findPatientVersion(@Param("patientId") Long patientId);
+
+    @Query("select a.appointmentTime from Appointment a where a.doctor.id = :doctorId " +
+           "and a.status = com.example.healthcaresystem.model.Appointment.Status.SCHEDULED and a.appointmentTime > :after")
+    List<LocalDateTime> findScheduledTimes(@Param("doctorId") Long doctorId, @Param("after") LocalDateTime after);
+
+    // Listing rows: one JOIN query selecting only what the listings show
+    String SUMMARY_SELECT = "select new com.example.healthcaresystem.model.AppointmentSummary(a.id, a.appointmentTime, " +
+            "a.status, a.notes, d.id, d.name, d.specialization, p.id, p.name) " +
+            "from Appointment a join a.doctor d join a.patient p ";
+
+    @Query(SUMMARY_SELECT + "where p.id = :patientId order by a.appointmentTime desc, a.id desc")
+    List<AppointmentSummary> findSummariesByPatient(@Param("patientId") Long patientId);
+
+    @Query(SUMMARY_SELECT + "where a.id in :ids")
+    List<AppointmentSummary> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    // (appointment id, doctor id, notes) of every appointment with notes, streamed for building the notes index
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select a.id, a.doctor.id, a.notes from Appointment a where a.notes is not null")
+    Stream<Object[]> streamNotes();
+
+    // A doctor's appointments in [from, to), optionally of one status, as a range seek on idx_appointment_doctor_time
+    @Query(SUMMARY_SELECT + "where d.id = :doctorId and a.appointmentTime >= :from and a.appointmentTime < :to " +
+           "and (:status is null or a.status = :status) order by a.appointmentTime, a.id")
+    Slice<AppointmentSummary> findDoctorSchedule(@Param("doctorId") Long doctorId, @Param("from") LocalDateTime from,
+                                                 @Param("to") LocalDateTime to, @Param("status") Appointment.Status status,
+                                                 Pageable pageable);
+
+    // Keyset pages, newest first: the first page, then everything sorting after the last (time, id) seen
+    @Query(SUMMARY_SELECT + "where p.id = :patientId order by a.appointmentTime desc, a.id desc")
+    Slice<AppointmentSummary> findPatientHistory(@Param("patientId") Long patientId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where p.id = :patientId and (a.appointmentTime < :time " +
+           "or (a.appointmentTime = :time and a.id < :id)) order by a.appointmentTime desc, a.id desc")
+    Slice<AppointmentSummary> findPatientHistoryBefore(@Param("patientId") Long patientId, @Param("time") LocalDateTime time,
+                                                       @Param("id") Long id, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where d.id = :doctorId order by a.appointmentTime desc, a.id desc")
+    Slice<AppointmentSummary> findDoctorHistory(@Param("doctorId") Long doctorId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "where d.id = :doctorId and (a.appointmentTime < :time " +
+           "or (a.appointmentTime = :time and a.id < :id)) order by a.appointmentTime desc, a.id desc")
+    Slice<AppointmentSummary> findDoctorHistoryBefore(@Param("doctorId") Long doctorId, @Param("time") LocalDateTime time,
+                                                      @Param("id") Long id, Pageable pageable);
+
+    // Medical records: completed appointments with notes (blank notes are stored as null), newest first, seeking on idx_appointment_patient_status_time
+    String RECORDS_WHERE = "where p.id = :patientId " +
+            "and a.status = com.example.healthcaresystem.model.Appointment.Status.COMPLETED " +
+            "and a.notes is not null ";
+
+    @Query(SUMMARY_SELECT + RECORDS_WHERE + "order by a.appointmentTime desc, a.id desc")
+    Slice<AppointmentSummary> findMedicalRecords(@Param("patientId") Long patientId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + RECORDS_WHERE + "and (a.appointmentTime < :time or (a.appointmentTime = :time and a.id < :id)) " +
+           "order by a.appointmentTime desc, a.id desc")
+    Slice<AppointmentSummary> findMedicalRecordsBefore(@Param("patientId") Long patientId, @Param("time") LocalDateTime time,
+                                                       @Param("id") Long id, Pageable pageable);
+
+    @Query("select count(a) from Appointment a join a.patient p " + RECORDS_WHERE)
+    long countMedicalRecords(@Param("patientId") Long patientId);
+
+    long countByPatientId(Long patientId);
+
+    long countByDoctorId(Long doctorId);
 }
@@ -0,0 +1,75 @@
+package com.example.healthcaresystem.repo;
+
+import com.example.healthcaresystem.model.DoctorDayCalendar;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DoctorDayCalendarRepository extends JpaRepository<DoctorDayCalendar, Long> {
+
+    @Query("select c from DoctorDayCalendar c where c.doctor.id = :doctorId and c.day >= :from order by c.day")
+    List<DoctorDayCalendar> findFromDay(@Param("doctorId") Long doctorId, @Param("from") LocalDate from);
+
+    @Query("select c from DoctorDayCalendar c where c.doctor.id = :doctorId and c.day between :from and :to order by c.day")
+    List<DoctorDayCalendar> findBetween(@Param("doctorId") Long doctorId,
+                                        @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Locked in id order so concurrent batches queue instead of deadlocking
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from DoctorDayCalendar c where c.doctor.id in :doctorIds and c.day in :days order by c.id")
+    List<DoctorDayCalendar> lockDays(@Param("doctorIds") Collection<Long> doctorIds,
+                                     @Param("days") Collection<LocalDate> days);
+
+    // "rows.versions" of a doctor's calendars; rows are never deleted and every write bumps
+    // a row's version, so this changes with every availability change
+    @Query("select concat(cast(count(c) as String), '.', cast(coalesce(sum(c.version), 0) as String)) " +
+           "from DoctorDayCalendar c where c.doctor.id = :doctorId")
+    String findVersion(@Param("doctorId") Long doctorId);
+
+    // (doctorId, doctorName, day, openLow, openHigh) of days with open slots for one specialization.
+    // Drives from idx_doctor_specialization into uk_calendar_doctor_day (doctor_id, calendar_day).
+    @Query("select d.id, d.name, c.day, c.openLow, c.openHigh from DoctorDayCalendar c join c.doctor d " +
+           "where d.specialization = :specialization and c.day between :from and :to " +
+           "and (c.openLow <> 0 or c.openHigh <> 0) order by c.day, d.id")
+    List<Object[]> findOpenDays(@Param("specialization") String specialization,
+                                @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Opens the given slot bits except those already booked; returns 0 if the doctor has no row for that day yet
+    @Modifying
+    @Query("update DoctorDayCalendar c set c.version = c.version + 1, " +
+           "c.openLow = bitor(c.openLow, cast(:lowBits as Long) - bitand(cast(:lowBits as Long), c.bookedLow)), " +
+           "c.openHigh = bitor(c.openHigh, cast(:highBits as Long) - bitand(cast(:highBits as Long), c.bookedHigh)) " +
+           "where c.doctor.id = :doctorId and c.day = :day")
+    int open(@Param("doctorId") Long doctorId, @Param("day") LocalDate day,
+             @Param("lowBits") long lowBits, @Param("highBits") long highBits);
+
+    // Opens one slot only if it is neither open nor booked yet
+    @Modifying
+    @Query("update DoctorDayCalendar c set c.version = c.version + 1, " +
+           "c.openLow = c.openLow + :lowBit, c.openHigh = c.openHigh + :highBit " +
+           "where c.doctor.id = :doctorId and c.day = :day " +
+           "and bitand(bitor(c.openLow, c.bookedLow), cast(:lowBit as Long)) = 0 " +
+           "and bitand(bitor(c.openHigh, c.bookedHigh), cast(:highBit as Long)) = 0")
+    int add(@Param("doctorId") Long doctorId, @Param("day") LocalDate day,
+            @Param("lowBit") long lowBit, @Param("highBit") long highBit);
+
+    // Moves one booked slot back to open; returns 0 if it wasn't booked
+    @Modifying
+    @Query("update DoctorDayCalendar c set c.version = c.version + 1, " +
+           "c.openLow = c.openLow + :lowBit, c.openHigh = c.openHigh + :highBit, " +
+           "c.bookedLow = c.bookedLow - :lowBit, c.bookedHigh = c.bookedHigh - :highBit " +
+           "where c.doctor.id = :doctorId and c.day = :day " +
+           "and bitand(c.bookedLow, cast(:lowBit as Long)) = :lowBit " +
+           "and bitand(c.bookedHigh, cast(:highBit as Long)) = :highBit")
+    int release(@Param("doctorId") Long doctorId, @Param("day") LocalDate day,
+                @Param("lowBit") long lowBit, @Param("highBit") long highBit);
+}
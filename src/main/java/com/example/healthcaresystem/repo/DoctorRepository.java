@@ -3,9 +3,13 @@ package com.example.healthcaresystem.repo;
 import com.example.healthcaresystem.model.Doctor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,4 +20,19 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long> {
     Page<Doctor> findBySpecializationContainingIgnoreCase(String specialization, Pageable pageable);
     
     boolean existsByEmail(String email);
+
+    // Keyset page in id order
+    Slice<Doctor> findByIdGreaterThanOrderById(Long id, Pageable pageable);
+
+    // (id, specialization, name) of every doctor, for building the search index
+    @Query("select d.id, d.specialization, d.name from Doctor d")
+    List<Object[]> findSearchFields();
+
+    // Row lock on the doctor until the transaction ends; serializes creating their calendar days
+    @Query(value = "SELECT id FROM doctor WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockById(@Param("id") Long id);
+
+    // Read from the row rather than the second-level cache, which other instances don't update
+    @Query("select d.version from Doctor d where d.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
 }
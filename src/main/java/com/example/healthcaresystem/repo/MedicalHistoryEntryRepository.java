@@ -0,0 +1,30 @@
+package com.example.healthcaresystem.repo;
+
+import com.example.healthcaresystem.model.MedicalHistoryEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MedicalHistoryEntryRepository extends JpaRepository<MedicalHistoryEntry, Long> {
+
+    // The latest REPLACE entry and every entry after it, oldest first: the pieces of the current text
+    @Query("select e from MedicalHistoryEntry e where e.patient.id = :patientId and e.version >= " +
+           "(select coalesce(max(r.version), 0) from MedicalHistoryEntry r where r.patient.id = :patientId " +
+           "and r.kind = com.example.healthcaresystem.model.MedicalHistoryEntry.Kind.REPLACE) order by e.version")
+    List<MedicalHistoryEntry> findSinceLastReplace(@Param("patientId") Long patientId);
+
+    // Newest first, paged by version via the (patient_id, version) unique index
+    @Query("select e from MedicalHistoryEntry e where e.patient.id = :patientId order by e.version desc")
+    Slice<MedicalHistoryEntry> findRecent(@Param("patientId") Long patientId, Pageable pageable);
+
+    @Query("select e from MedicalHistoryEntry e where e.patient.id = :patientId and e.version < :beforeVersion " +
+           "order by e.version desc")
+    Slice<MedicalHistoryEntry> findRecentBefore(@Param("patientId") Long patientId,
+                                                @Param("beforeVersion") int beforeVersion, Pageable pageable);
+}
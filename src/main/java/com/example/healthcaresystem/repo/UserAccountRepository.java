@@ -0,0 +1,23 @@
+package com.example.healthcaresystem.repo;
+
+import com.example.healthcaresystem.model.UserAccount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UserAccountRepository extends JpaRepository<UserAccount, Long> {
+
+    Optional<UserAccount> findByEmail(String email);
+
+    boolean existsByEmail(String email);
+
+    // Which of these emails are already registered, in one set-based query
+    @Query("select a.email from UserAccount a where a.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+}
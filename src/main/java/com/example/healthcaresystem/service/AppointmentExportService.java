@@ -0,0 +1,137 @@
+package com.example.healthcaresystem.service;
+
+import com.example.healthcaresystem.model.AppointmentSummary;
+import com.example.healthcaresystem.repo.AppointmentRepository;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams appointments for a time range straight from a forward-only result
+ * set to the response. Rows are read with a JDBC fetch size, written one at a
+ * time and never collected, so memory stays flat regardless of row count.
+ * Rows are DTO projections, which the persistence context never tracks.
+ */
+@Service
+public class AppointmentExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final String EXPORT_QUERY = AppointmentRepository.SUMMARY_SELECT +
+            "where a.appointmentTime >= :from and a.appointmentTime < :to " +
+            "and (:doctorId is null or d.id = :doctorId) order by a.appointmentTime, a.id";
+
+    private static final String CSV_HEADER =
+            "id,appointmentTime,status,doctorId,doctorName,doctorSpecialization,patientId,patientName,notes";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ObjectWriter jsonWriter;
+    private final int fetchSize;
+
+    public AppointmentExportService(ObjectMapper objectMapper,
+                                    @Value("${export.fetch-size:1000}") int fetchSize) {
+        // Flushing is left to the buffered stream rather than done per row
+        this.jsonWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Writes appointments in [from, to), optionally for one doctor, in time order.
+     * Runs its own read-only transaction so it works from the async thread
+     * that serves a streaming response.
+     */
+    @Transactional(readOnly = true)
+    public long export(LocalDateTime from, LocalDateTime to, Long doctorId, Format format, OutputStream out) throws IOException {
+        TypedQuery<AppointmentSummary> query = entityManager.createQuery(EXPORT_QUERY, AppointmentSummary.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setParameter("doctorId", doctorId)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+
+        try (Stream<AppointmentSummary> rows = query.getResultStream()) {
+            return format == Format.CSV ? writeCsv(rows.iterator(), out) : writeNdjson(rows.iterator(), out);
+        }
+    }
+
+    private long writeNdjson(Iterator<AppointmentSummary> rows, OutputStream out) throws IOException {
+        // Flushed, not closed: the caller owns the response stream
+        JsonGenerator generator = jsonWriter.createGenerator(out);
+        long count = 0;
+        while (rows.hasNext()) {
+            jsonWriter.writeValue(generator, rows.next());
+            generator.writeRaw('\n');
+            count++;
+        }
+        generator.flush();
+        return count;
+    }
+
+    private long writeCsv(Iterator<AppointmentSummary> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        long count = 0;
+        while (rows.hasNext()) {
+            AppointmentSummary row = rows.next();
+            writer.write(row.id() + "," + row.appointmentTime() + "," + row.status() + ","
+                    + row.doctor().id() + "," + csv(row.doctor().name()) + "," + csv(row.doctor().specialization()) + ","
+                    + row.patient().id() + "," + csv(row.patient().name()) + "," + csv(row.notes()));
+            writer.write('\n');
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    // RFC 4180 quoting when the value contains a delimiter, quote or line break
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
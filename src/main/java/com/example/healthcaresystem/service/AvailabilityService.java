@@ -0,0 +1,222 @@
+package com.example.healthcaresystem.service;
+
+import com.example.healthcaresystem.model.Doctor;
+import com.example.healthcaresystem.model.DoctorDayCalendar;
+import com.example.healthcaresystem.repo.DoctorRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Creates doctor availability slots, one at a time or expanded from a
+ * recurring weekly template, and finds the earliest open slots across doctors.
+ */
+@Service
+public class AvailabilityService {
+
+    // Upper bounds for one template so a typo can't generate millions of rows
+    static final int MAX_TEMPLATE_DAYS = 366;
+    static final int MAX_TEMPLATE_SLOTS = 20_000;
+
+    // Bounds for the earliest-slot search
+    static final int MAX_EARLIEST_SLOTS = 100;
+    static final int MAX_SEARCH_DAYS = 366;
+
+    private final DoctorRepository doctorRepository;
+    private final DoctorCalendarService calendarService;
+    private final TransactionTemplate readOnlyTransaction;
+
+    // Concurrent availability reads of one doctor share a single load
+    private final SingleFlight<String, DoctorAvailability> availabilityLoads;
+
+    @Autowired
+    public AvailabilityService(DoctorRepository doctorRepository,
+                               DoctorCalendarService calendarService,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry) {
+        this.doctorRepository = doctorRepository;
+        this.calendarService = calendarService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.availabilityLoads = new SingleFlight<>("doctor.availability", meterRegistry);
+    }
+
+    /**
+     * Weekly recurring hours: every listed weekday between fromDate and toDate
+     * (inclusive), except the exception dates, split into slotMinutes slots
+     * starting at startTime and ending no later than endTime.
+     */
+    public record ScheduleTemplate(Set<DayOfWeek> weekdays, LocalTime startTime, LocalTime endTime,
+                                   int slotMinutes, LocalDate fromDate, LocalDate toDate,
+                                   Set<LocalDate> exceptions) {}
+
+    public record TemplateResult(List<LocalDateTime> created, List<LocalDateTime> skippedExisting,
+                                 List<LocalDateTime> skippedPast) {}
+
+    public record OpenSlot(Long doctorId, String doctorName, LocalDateTime availableTime) {}
+
+    public record DoctorAvailability(Doctor doctor, List<LocalDateTime> openTimes) {}
+
+    /**
+     * The doctor and their open slot times after the given instant, read in
+     * one transaction. Throws NoSuchElementException if the doctor doesn't exist.
+     */
+    @Transactional(readOnly = true)
+    public DoctorAvailability availability(Long doctorId, LocalDateTime after) {
+        Doctor doctor = doctorRepository.findById(doctorId).orElseThrow();
+        return new DoctorAvailability(doctor, calendarService.openTimes(doctorId, after));
+    }
+
+    /**
+     * Like {@link #availability}, but concurrent calls with the same version
+     * share one load, so a burst of reads after a slot change costs one query
+     * per day row instead of one per request. The version must identify the
+     * doctor's availability state and slot boundary (see
+     * {@link ResourceVersions#availabilityTag}): every caller sharing a load
+     * gets data at least as new as its version.
+     */
+    public DoctorAvailability sharedAvailability(Long doctorId, LocalDateTime now, String version) {
+        // Loaded from the start of the current slot, so it suits every caller with this version
+        LocalDateTime slotStart = now.truncatedTo(ChronoUnit.MINUTES)
+                .minusMinutes(now.getMinute() % DoctorDayCalendar.SLOT_MINUTES);
+        DoctorAvailability shared = availabilityLoads.load(version,
+                () -> readOnlyTransaction.execute(status -> availability(doctorId, slotStart)));
+        return new DoctorAvailability(shared.doctor(),
+                shared.openTimes().stream().filter(time -> time.isAfter(now)).toList());
+    }
+
+    /**
+     * The {@code limit} earliest open slots in [from, to) across all doctors
+     * of the given specialization, read from the day calendars of the
+     * specialization's doctors.
+     */
+    @Transactional(readOnly = true)
+    public List<OpenSlot> earliestOpenSlots(String specialization, LocalDateTime from, LocalDateTime to, int limit) {
+        if (limit <= 0 || limit > MAX_EARLIEST_SLOTS) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_EARLIEST_SLOTS);
+        }
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_SEARCH_DAYS) {
+            throw new IllegalArgumentException("Search window cannot exceed " + MAX_SEARCH_DAYS + " days");
+        }
+
+        // Past slots can't be booked
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = from.isAfter(now) ? from : now;
+
+        return calendarService.earliestOpen(specialization.trim(), start, to, limit);
+    }
+
+    /**
+     * Adds a single slot. Throws NoSuchElementException if the doctor
+     * doesn't exist and IllegalStateException if the slot already exists.
+     */
+    @Transactional
+    public void addSlot(Long doctorId, LocalDateTime availableTime) {
+        if (!DoctorDayCalendar.isOnGrid(availableTime)) {
+            throw new IllegalArgumentException("Slot times must start on a " + DoctorDayCalendar.SLOT_MINUTES + "-minute boundary");
+        }
+        if (!doctorRepository.existsById(doctorId)) {
+            throw new NoSuchElementException("Doctor not found");
+        }
+
+        if (!calendarService.add(doctorId, availableTime)) {
+            throw new IllegalStateException("Slot already exists for this time");
+        }
+    }
+
+    /**
+     * Expands the template into slots, skipping times in the past and times the
+     * doctor already has (found with one range query), and opens the rest
+     * with one calendar update per day in the same transaction.
+     */
+    @Transactional
+    public TemplateResult applyTemplate(Long doctorId, ScheduleTemplate template) {
+        validate(template);
+        if (!doctorRepository.existsById(doctorId)) {
+            throw new NoSuchElementException("Doctor not found");
+        }
+
+        List<LocalDateTime> candidates = expand(template);
+        List<LocalDateTime> created = new ArrayList<>();
+        List<LocalDateTime> skippedExisting = new ArrayList<>();
+        List<LocalDateTime> skippedPast = new ArrayList<>();
+        if (candidates.isEmpty()) {
+            return new TemplateResult(created, skippedExisting, skippedPast);
+        }
+
+        Set<LocalDateTime> existing = calendarService.slotTimes(
+                doctorId, candidates.get(0), candidates.get(candidates.size() - 1));
+        LocalDateTime now = LocalDateTime.now();
+
+        for (LocalDateTime time : candidates) {
+            if (!time.isAfter(now)) {
+                skippedPast.add(time);
+            } else if (existing.contains(time)) {
+                skippedExisting.add(time);
+            } else {
+                created.add(time);
+            }
+        }
+        calendarService.open(doctorId, created);
+
+        return new TemplateResult(created, skippedExisting, skippedPast);
+    }
+
+    private static void validate(ScheduleTemplate template) {
+        if (template.weekdays().isEmpty()) {
+            throw new IllegalArgumentException("At least one weekday is required");
+        }
+        if (template.slotMinutes() <= 0 || template.slotMinutes() % DoctorDayCalendar.SLOT_MINUTES != 0) {
+            throw new IllegalArgumentException("slotMinutes must be a positive multiple of " + DoctorDayCalendar.SLOT_MINUTES);
+        }
+        if (!DoctorDayCalendar.isOnGrid(template.fromDate().atTime(template.startTime()))) {
+            throw new IllegalArgumentException("startTime must fall on a " + DoctorDayCalendar.SLOT_MINUTES + "-minute boundary");
+        }
+        if (!template.startTime().isBefore(template.endTime())) {
+            throw new IllegalArgumentException("startTime must be before endTime");
+        }
+        if (template.toDate().isBefore(template.fromDate())) {
+            throw new IllegalArgumentException("toDate must not be before fromDate");
+        }
+        if (ChronoUnit.DAYS.between(template.fromDate(), template.toDate()) >= MAX_TEMPLATE_DAYS) {
+            throw new IllegalArgumentException("Template range cannot exceed " + MAX_TEMPLATE_DAYS + " days");
+        }
+    }
+
+    // Slot start times in ascending order
+    private static List<LocalDateTime> expand(ScheduleTemplate template) {
+        List<LocalDateTime> times = new ArrayList<>();
+        for (LocalDate day = template.fromDate(); !day.isAfter(template.toDate()); day = day.plusDays(1)) {
+            if (!template.weekdays().contains(day.getDayOfWeek()) || template.exceptions().contains(day)) {
+                continue;
+            }
+            LocalDateTime end = day.atTime(template.endTime());
+            for (LocalDateTime start = day.atTime(template.startTime());
+                 !start.plusMinutes(template.slotMinutes()).isAfter(end);
+                 start = start.plusMinutes(template.slotMinutes())) {
+                times.add(start);
+                if (times.size() > MAX_TEMPLATE_SLOTS) {
+                    throw new IllegalArgumentException("Template would create more than " + MAX_TEMPLATE_SLOTS + " slots");
+                }
+            }
+        }
+        return times;
+    }
+}
@@ -0,0 +1,301 @@
+package com.example.healthcaresystem.service;
+
+import com.example.healthcaresystem.model.Appointment;
+import com.example.healthcaresystem.repo.AppointmentRepository;
+import com.example.healthcaresystem.service.BookingService.BookingRequest;
+import com.example.healthcaresystem.service.BookingService.BookingResult;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Serializes bookings per doctor. Each doctor is pinned to one of a fixed set
+ * of lanes (worker threads); a lane drains whatever requests have queued up,
+ * rejects times its in-memory view already knows are booked, and commits the
+ * rest through {@link BookingService#bookBatch} in one transaction per tick.
+ * Bookings for different doctors never contend on the same lane's rows, and
+ * bursts for one doctor collapse into a single batch of round trips.
+ * If a batch fails as a whole, its requests are retried one by one so a single
+ * bad request can't fail the others.
+ */
+@Component
+public class BookingEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingEngine.class);
+
+    // Keeps each lane's cached views bounded
+    private static final int MAX_VIEWS_PER_LANE = 10_000;
+
+    private static final String SHUTTING_DOWN = "Booking service is shutting down, no appointment was made";
+
+    private final BookingService bookingService;
+    private final AppointmentRepository appointmentRepository;
+    private final Lane[] lanes;
+    private final int maxBatch;
+    private final long timeoutMillis;
+    private final long viewTtlMillis;
+    private volatile boolean stopped;
+
+    public BookingEngine(BookingService bookingService,
+                         AppointmentRepository appointmentRepository,
+                         @Value("${booking.engine.lanes:0}") int laneCount,
+                         @Value("${booking.engine.max-batch:200}") int maxBatch,
+                         @Value("${booking.engine.timeout-ms:10000}") long timeoutMillis,
+                         @Value("${booking.engine.view-ttl-seconds:30}") long viewTtlSeconds) {
+        this.bookingService = bookingService;
+        this.appointmentRepository = appointmentRepository;
+        this.lanes = new Lane[laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors()];
+        this.maxBatch = maxBatch;
+        this.timeoutMillis = timeoutMillis;
+        this.viewTtlMillis = viewTtlSeconds * 1000;
+    }
+
+    @PostConstruct
+    void start() {
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane("booking-lane-" + i);
+            lanes[i].start();
+        }
+    }
+
+    /**
+     * Stops the lanes, lets a tick in progress finish, and fails every request
+     * still queued so no caller is left waiting.
+     */
+    @PreDestroy
+    void stop() {
+        stopped = true;
+        for (Lane lane : lanes) {
+            lane.interrupt();
+        }
+        for (Lane lane : lanes) {
+            try {
+                lane.join(timeoutMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        for (Lane lane : lanes) {
+            lane.failQueued();
+        }
+    }
+
+    /**
+     * Queues a booking on its doctor's lane and waits for the committed result.
+     * Throws IllegalArgumentException/IllegalStateException like a direct booking would.
+     * A request the lane hasn't picked up within the timeout is withdrawn and
+     * reported as not booked; once the lane has it, this waits for its outcome.
+     */
+    public Appointment book(Long patientId, Long doctorId, LocalDateTime appointmentTime) {
+        Pending pending = new Pending(new BookingRequest(patientId, doctorId, appointmentTime),
+                new CompletableFuture<>(), new AtomicBoolean());
+        enqueue(pending);
+        BookingResult result;
+        try {
+            try {
+                result = pending.future().get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (pending.taken().compareAndSet(false, true)) {
+                    throw new IllegalStateException("Booking service is busy, no appointment was made. Please try again");
+                }
+                // The lane is already booking it, so its outcome is on the way
+                result = pending.future().get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while booking", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+
+        if (!result.isBooked()) {
+            throw new IllegalStateException(result.error());
+        }
+        return result.appointment();
+    }
+
+    public CompletableFuture<BookingResult> submit(BookingRequest request) {
+        Pending pending = new Pending(request, new CompletableFuture<>(), new AtomicBoolean());
+        enqueue(pending);
+        return pending.future();
+    }
+
+    private void enqueue(Pending pending) {
+        if (stopped) {
+            pending.future().completeExceptionally(new IllegalStateException(SHUTTING_DOWN));
+            return;
+        }
+        Lane lane = laneFor(pending.request().doctorId());
+        lane.queue.add(pending);
+        if (stopped) {
+            // stop() may have swept the queue just before this request landed in it
+            lane.failQueued();
+        }
+    }
+
+    /**
+     * Tells the doctor's lane that a booked time was freed (e.g. by a cancellation).
+     */
+    public void slotReleased(Long doctorId, LocalDateTime appointmentTime) {
+        laneFor(doctorId).queue.add(new Release(doctorId, appointmentTime));
+    }
+
+    private Lane laneFor(Long doctorId) {
+        return lanes[Math.floorMod(doctorId.hashCode(), lanes.length)];
+    }
+
+    // taken is set once, by whichever comes first: the lane picking the request up or the caller giving up on it
+    private record Pending(BookingRequest request, CompletableFuture<BookingResult> future, AtomicBoolean taken) {}
+
+    private record Release(Long doctorId, LocalDateTime appointmentTime) {}
+
+    // Booked times of one doctor as last seen by its lane
+    private static final class DoctorView {
+        final Set<LocalDateTime> bookedTimes;
+        final long loadedAt;
+
+        DoctorView(Set<LocalDateTime> bookedTimes, long loadedAt) {
+            this.bookedTimes = bookedTimes;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final class Lane extends Thread {
+
+        final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+
+        // Only touched by this lane's thread
+        private final Map<Long, DoctorView> views = new HashMap<>();
+
+        Lane(String name) {
+            super(name);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<Object> commands = new ArrayList<>();
+            while (!isInterrupted()) {
+                try {
+                    commands.add(queue.take());
+                } catch (InterruptedException e) {
+                    break;
+                }
+                queue.drainTo(commands, maxBatch - 1);
+                try {
+                    tick(commands);
+                } catch (RuntimeException e) {
+                    log.error("Booking lane {} failed a tick", getName(), e);
+                    // Never leave a caller waiting on a tick that blew up
+                    for (Object command : commands) {
+                        if (command instanceof Pending pending) {
+                            pending.future().completeExceptionally(e);
+                        }
+                    }
+                }
+                commands.clear();
+            }
+        }
+
+        private void tick(List<Object> commands) {
+            List<Pending> batch = new ArrayList<>();
+            for (Object command : commands) {
+                if (command instanceof Release release) {
+                    DoctorView view = views.get(release.doctorId());
+                    if (view != null) {
+                        view.bookedTimes.remove(release.appointmentTime());
+                    }
+                } else if (command instanceof Pending pending) {
+                    if (!pending.taken().compareAndSet(false, true)) {
+                        // The caller timed out and withdrew it
+                        continue;
+                    }
+                    BookingRequest request = pending.request();
+                    if (view(request.doctorId()).bookedTimes.contains(request.appointmentTime())) {
+                        // Known booked: answer without touching the database
+                        pending.future().complete(BookingResult.failed(request, "Doctor is not available at this time"));
+                    } else {
+                        batch.add(pending);
+                    }
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            List<BookingResult> results;
+            try {
+                results = bookingService.bookBatch(batch.stream().map(Pending::request).toList());
+            } catch (RuntimeException e) {
+                // The batch rolled back as a whole; retry each request alone so one failure stays one failure
+                log.warn("Booking lane {} failed a batch of {}, retrying one by one", getName(), batch.size(), e);
+                for (Pending pending : batch) {
+                    try {
+                        complete(pending, bookingService.bookBatch(List.of(pending.request())).get(0));
+                    } catch (RuntimeException single) {
+                        pending.future().completeExceptionally(single);
+                    }
+                }
+                return;
+            }
+
+            for (int i = 0; i < batch.size(); i++) {
+                complete(batch.get(i), results.get(i));
+            }
+        }
+
+        private void complete(Pending pending, BookingResult result) {
+            if (result.isBooked()) {
+                view(result.request().doctorId()).bookedTimes.add(result.request().appointmentTime());
+            }
+            pending.future().complete(result);
+        }
+
+        void failQueued() {
+            List<Object> commands = new ArrayList<>();
+            queue.drainTo(commands);
+            for (Object command : commands) {
+                if (command instanceof Pending pending && pending.taken().compareAndSet(false, true)) {
+                    pending.future().completeExceptionally(new IllegalStateException(SHUTTING_DOWN));
+                }
+            }
+        }
+
+        private DoctorView view(Long doctorId) {
+            long now = System.currentTimeMillis();
+            DoctorView view = views.get(doctorId);
+            if (view == null || now - view.loadedAt > viewTtlMillis) {
+                if (views.size() >= MAX_VIEWS_PER_LANE) {
+                    views.clear();
+                }
+                view = new DoctorView(new HashSet<>(
+                        appointmentRepository.findScheduledTimes(doctorId, LocalDateTime.now())), now);
+                views.put(doctorId, view);
+            }
+            return view;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.healthcaresystem.service;
+
+import com.example.healthcaresystem.model.Appointment;
+import com.example.healthcaresystem.model.Doctor;
+import com.example.healthcaresystem.model.Patient;
+import com.example.healthcaresystem.repo.AppointmentRepository;
+import com.example.healthcaresystem.repo.DoctorRepository;
+import com.example.healthcaresystem.repo.PatientRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Books and cancels appointments against doctor availability slots.
+ * A booking claims its slot on the doctor's day calendar under a row lock,
+ * so concurrent requests for the same slot produce exactly one appointment.
+ */
+@Service
+public class BookingService {
+
+    private static final String INSERT_APPOINTMENT_SQL =
+            "INSERT INTO appointment (doctor_id, patient_id, appointment_time, status) VALUES (?, ?, ?, ?)";
+
+    private final AppointmentRepository appointmentRepository;
+    private final DoctorRepository doctorRepository;
+    private final PatientRepository patientRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final DoctorCalendarService calendarService;
+
+    @Autowired
+    public BookingService(AppointmentRepository appointmentRepository,
+                          DoctorRepository doctorRepository,
+                          PatientRepository patientRepository,
+                          JdbcTemplate jdbcTemplate,
+                          DoctorCalendarService calendarService) {
+        this.appointmentRepository = appointmentRepository;
+        this.doctorRepository = doctorRepository;
+        this.patientRepository = patientRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.calendarService = calendarService;
+    }
+
+    public record BookingRequest(Long patientId, Long doctorId, LocalDateTime appointmentTime) {}
+
+    /**
+     * Outcome of one booking request: either the created appointment or an error message.
+     */
+    public record BookingResult(BookingRequest request, Appointment appointment, String error) {
+
+        static BookingResult failed(BookingRequest request, String error) {
+            return new BookingResult(request, null, error);
+        }
+
+        public boolean isBooked() {
+            return appointment != null;
+        }
+    }
+
+    /**
+     * Books a list of requests in one transaction: doctors and patients are
+     * loaded with one query each, slots are claimed on the day calendars with
+     * one locking read and one batch of updates, and appointments are inserted
+     * as one JDBC batch for the claims that won.
+     * Returns one result per request, in request order.
+     */
+    @Transactional
+    public List<BookingResult> bookBatch(List<BookingRequest> requests) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Doctor> doctors = doctorRepository.findAllById(
+                requests.stream().map(BookingRequest::doctorId).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Doctor::getId, Function.identity()));
+        Map<Long, Patient> patients = patientRepository.findAllById(
+                requests.stream().map(BookingRequest::patientId).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Patient::getId, Function.identity()));
+
+        BookingResult[] results = new BookingResult[requests.size()];
+        List<Integer> claimable = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            BookingRequest request = requests.get(i);
+            if (request.appointmentTime().isBefore(now)) {
+                results[i] = BookingResult.failed(request, "Appointment time must be in the future");
+            } else if (!doctors.containsKey(request.doctorId())) {
+                results[i] = BookingResult.failed(request, "Doctor not found");
+            } else if (!patients.containsKey(request.patientId())) {
+                results[i] = BookingResult.failed(request, "Patient not found");
+            } else if (!seen.add(request.doctorId() + "@" + request.appointmentTime())) {
+                results[i] = BookingResult.failed(request, "Doctor is not available at this time");
+            } else {
+                claimable.add(i);
+            }
+        }
+
+        if (!claimable.isEmpty()) {
+            Set<DoctorCalendarService.Slot> claimed = calendarService.claim(claimable.stream()
+                    .map(i -> new DoctorCalendarService.Slot(requests.get(i).doctorId(), requests.get(i).appointmentTime()))
+                    .toList());
+
+            List<Appointment> appointments = new ArrayList<>();
+            for (int i : claimable) {
+                BookingRequest request = requests.get(i);
+                if (claimed.contains(new DoctorCalendarService.Slot(request.doctorId(), request.appointmentTime()))) {
+                    Appointment appointment = new Appointment(doctors.get(request.doctorId()),
+                            patients.get(request.patientId()), request.appointmentTime(), Appointment.Status.SCHEDULED);
+                    appointments.add(appointment);
+                    results[i] = new BookingResult(request, appointment, null);
+                } else {
+                    results[i] = BookingResult.failed(request, "Doctor is not available at this time");
+                }
+            }
+            insertAppointments(appointments);
+        }
+        return List.of(results);
+    }
+
+    // One JDBC batch for the whole list; IDENTITY ids come back as generated keys, so no id
+    // table is locked and no second connection is needed while the claimed slot rows are held
+    private void insertAppointments(List<Appointment> appointments) {
+        if (appointments.isEmpty()) {
+            return;
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_APPOINTMENT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Appointment appointment = appointments.get(i);
+                        ps.setLong(1, appointment.getDoctor().getId());
+                        ps.setLong(2, appointment.getPatient().getId());
+                        ps.setTimestamp(3, Timestamp.valueOf(appointment.getAppointmentTime()));
+                        ps.setString(4, appointment.getStatus().name());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return appointments.size();
+                    }
+                }, keys);
+        List<Map<String, Object>> ids = keys.getKeyList();
+        for (int i = 0; i < appointments.size(); i++) {
+            appointments.get(i).setId(((Number) ids.get(i).values().iterator().next()).longValue());
+        }
+    }
+
+    /**
+     * Cancels a scheduled appointment and reopens its slot.
+     */
+    @Transactional
+    public Appointment cancel(Long appointmentId) {
+        Appointment appointment = appointmentRepository.findById(appointmentId)
+                .orElseThrow(() -> new IllegalArgumentException("Appointment not found"));
+
+        // Check if appointment is already cancelled or completed
+        if (appointment.getStatus() != Appointment.Status.SCHEDULED) {
+            throw new IllegalStateException("Appointment cannot be cancelled");
+        }
+
+        appointment.setStatus(Appointment.Status.CANCELLED);
+        calendarService.release(appointment.getDoctor().getId(), appointment.getAppointmentTime());
+        return appointment;
+    }
+
+    /**
+     * Marks a scheduled appointment completed.
+     */
+    @Transactional
+    public Appointment complete(Long appointmentId) {
+        Appointment appointment = appointmentRepository.findById(appointmentId)
+                .orElseThrow(() -> new IllegalArgumentException("Appointment not found"));
+
+        if (appointment.getStatus() != Appointment.Status.SCHEDULED) {
+            throw new IllegalStateException("Only scheduled appointments can be completed");
+        }
+
+        appointment.setStatus(Appointment.Status.COMPLETED);
+        return appointment;
+    }
+
+    /**
+     * Replaces the notes of a completed appointment with the prescription.
+     */
+    @Transactional
+    public Appointment addPrescription(Long appointmentId, String prescription) {
+        Appointment appointment = appointmentRepository.findById(appointmentId)
+                .orElseThrow(() -> new IllegalArgumentException("Appointment not found"));
+
+        if (appointment.getStatus() != Appointment.Status.COMPLETED) {
+            throw new IllegalStateException("Can only add prescription to completed appointments");
+        }
+
+        appointment.setNotes(prescription);
+        return appointment;
+    }
+
+}
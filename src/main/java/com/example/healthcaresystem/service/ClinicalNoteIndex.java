@@ -0,0 +1,269 @@
+package com.example.healthcaresystem.service;
+
+import com.example.healthcaresystem.repo.AppointmentRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over appointment notes (prescriptions and clinical
+ * notes), partitioned by doctor. Each doctor's partition maps terms to compact
+ * postings of (appointment id, term frequency), so a doctor-scoped search only
+ * touches that doctor's postings for the query terms, however many notes
+ * exist overall. Hits are ranked with BM25 over the doctor's own notes.
+ */
+@Component
+public class ClinicalNoteIndex implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(ClinicalNoteIndex.class);
+
+    // BM25 term-frequency saturation and length normalization
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    static final int MIN_TERM_LENGTH = 2;
+
+    public record Hit(long appointmentId, double score) {}
+
+    private record IndexedNote(long doctorId, String[] terms, int length) {}
+
+    private final AppointmentRepository appointmentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean rebuildOnStartup;
+
+    private final Map<Long, DoctorNotes> byDoctor = new HashMap<>();
+
+    // appointmentId -> terms as indexed, so re-indexing removes the old postings
+    private final Map<Long, IndexedNote> indexed = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ClinicalNoteIndex(AppointmentRepository appointmentRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${clinical-search.rebuild-on-startup:true}") boolean rebuildOnStartup) {
+        this.appointmentRepository = appointmentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    /**
+     * The doctor's appointments whose notes contain any of the query terms,
+     * best match first. Notes matching more (and rarer) terms rank higher.
+     */
+    public List<Hit> search(long doctorId, String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        lock.readLock().lock();
+        try {
+            DoctorNotes notes = byDoctor.get(doctorId);
+            if (notes == null || terms.isEmpty()) {
+                return List.of();
+            }
+            double averageLength = (double) notes.totalLength / notes.noteCount;
+            Map<Long, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                Postings postings = notes.postings.get(term);
+                if (postings == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (notes.noteCount - postings.size + 0.5) / (postings.size + 0.5));
+                for (int i = 0; i < postings.size; i++) {
+                    int tf = postings.frequencies[i];
+                    int length = indexed.get(postings.ids[i]).length();
+                    double score = idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / averageLength));
+                    scores.merge(postings.ids[i], score, Double::sum);
+                }
+            }
+            return top(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or re-indexes an appointment's notes; null or blank notes remove it.
+     * Call after every notes change.
+     */
+    public void put(long appointmentId, long doctorId, String text) {
+        List<String> tokens = tokenize(text);
+        Map<String, Integer> counts = new HashMap<>();
+        for (String token : tokens) {
+            counts.merge(token, 1, Integer::sum);
+        }
+        String[] terms = counts.keySet().toArray(new String[0]);
+        int[] frequencies = new int[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            frequencies[i] = counts.get(terms[i]);
+        }
+
+        lock.writeLock().lock();
+        try {
+            remove(appointmentId);
+            if (terms.length == 0) {
+                return;
+            }
+            DoctorNotes notes = byDoctor.computeIfAbsent(doctorId, id -> new DoctorNotes());
+            for (int i = 0; i < terms.length; i++) {
+                Postings postings = notes.postings.computeIfAbsent(terms[i], Postings::new);
+                postings.add(appointmentId, frequencies[i]);
+                // Keep the postings' own String so each distinct term is held once per doctor
+                terms[i] = postings.term;
+            }
+            notes.noteCount++;
+            notes.totalLength += tokens.size();
+            indexed.put(appointmentId, new IndexedNote(doctorId, terms, tokens.size()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long appointmentId) {
+        lock.writeLock().lock();
+        try {
+            IndexedNote note = indexed.remove(appointmentId);
+            if (note == null) {
+                return;
+            }
+            DoctorNotes notes = byDoctor.get(note.doctorId());
+            for (String term : note.terms()) {
+                Postings postings = notes.postings.get(term);
+                postings.remove(appointmentId);
+                if (postings.size == 0) {
+                    notes.postings.remove(term);
+                }
+            }
+            notes.noteCount--;
+            notes.totalLength -= note.length();
+            if (notes.noteCount == 0) {
+                byDoctor.remove(note.doctorId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return indexed.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reloads the index from appointment notes, streaming rows so the whole
+     * table is never held in memory at once.
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            byDoctor.clear();
+            indexed.clear();
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = appointmentRepository.streamNotes()) {
+                    rows.forEach(row -> put((Long) row[0], (Long) row[1], (String) row[2]));
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Runs before the web server starts, so searches never see a partial index
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (rebuildOnStartup) {
+            rebuild();
+            log.info("Indexed notes of {} appointments for search", size());
+        }
+    }
+
+    // Lowercased runs of letters and digits, so "Amoxicillin 500mg," gives [amoxicillin, 500mg]
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (token.length() >= MIN_TERM_LENGTH) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static List<Hit> top(Map<Long, Double> scores, int limit) {
+        Comparator<Hit> ranking = Comparator.comparingDouble(Hit::score).thenComparingLong(Hit::appointmentId);
+        // Min-heap of the best hits so far; ties go to the newer (higher) appointment id
+        PriorityQueue<Hit> best = new PriorityQueue<>(ranking);
+        scores.forEach((id, score) -> {
+            best.add(new Hit(id, score));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        });
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(ranking.reversed());
+        return hits;
+    }
+
+    private static final class DoctorNotes {
+
+        final Map<String, Postings> postings = new HashMap<>();
+        int noteCount;
+        long totalLength;
+    }
+
+    // Parallel arrays of appointment ids and term frequencies, unordered
+    private static final class Postings {
+
+        final String term;
+        long[] ids = new long[2];
+        int[] frequencies = new int[2];
+        int size;
+
+        Postings(String term) {
+            this.term = term;
+        }
+
+        void add(long id, int frequency) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            ids[size] = id;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        void remove(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    size--;
+                    ids[i] = ids[size];
+                    frequencies[i] = frequencies[size];
+                    return;
+                }
+            }
+        }
+    }
+}
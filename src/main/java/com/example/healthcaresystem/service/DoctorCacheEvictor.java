@@ -0,0 +1,46 @@
+package com.example.healthcaresystem.service;
+
+import com.example.healthcaresystem.model.Doctor;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Explicit second-level cache eviction for doctor writes. Changes made
+ * through entities keep the cache current on their own; this covers writes
+ * where a stale read must not survive the transaction. Entries are evicted
+ * immediately and again after commit, so a read racing the transaction
+ * can't leave the pre-commit state behind in the cache.
+ */
+@Component
+public class DoctorCacheEvictor {
+
+    private final Cache cache;
+
+    public DoctorCacheEvictor(EntityManagerFactory entityManagerFactory) {
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    /**
+     * Evicts a doctor.
+     */
+    public void evictDoctor(Long doctorId) {
+        evictNowAndAfterCommit(() -> cache.evictEntityData(Doctor.class, doctorId));
+    }
+
+    private static void evictNowAndAfterCommit(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
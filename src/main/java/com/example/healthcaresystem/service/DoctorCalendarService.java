@@ -0,0 +1,213 @@
+package com.example.healthcaresystem.service;
+
+import com.example.healthcaresystem.model.DoctorDayCalendar;
+import com.example.healthcaresystem.repo.DoctorDayCalendarRepository;
+import com.example.healthcaresystem.repo.DoctorRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Owns doctor availability, stored as per-day bitmaps ({@link DoctorDayCalendar})
+ * of open and booked slots. Every slot write is a bit flip on one small row
+ * per day, and reads touch one row per day instead of one row per slot.
+ */
+@Service
+public class DoctorCalendarService {
+
+    private final DoctorDayCalendarRepository calendarRepository;
+    private final DoctorRepository doctorRepository;
+
+    public record Slot(Long doctorId, LocalDateTime time) {}
+
+    @Autowired
+    public DoctorCalendarService(DoctorDayCalendarRepository calendarRepository,
+                                 DoctorRepository doctorRepository) {
+        this.calendarRepository = calendarRepository;
+        this.doctorRepository = doctorRepository;
+    }
+
+    /**
+     * Open slot times after the given instant, ascending.
+     */
+    @Transactional(readOnly = true)
+    public List<LocalDateTime> openTimes(Long doctorId, LocalDateTime after) {
+        List<LocalDateTime> times = new ArrayList<>();
+        for (DoctorDayCalendar calendar : calendarRepository.findFromDay(doctorId, after.toLocalDate())) {
+            for (LocalDateTime time : calendar.openTimes()) {
+                if (time.isAfter(after)) {
+                    times.add(time);
+                }
+            }
+        }
+        return times;
+    }
+
+    /**
+     * Every slot time, open or booked, within [from, to].
+     */
+    @Transactional(readOnly = true)
+    public Set<LocalDateTime> slotTimes(Long doctorId, LocalDateTime from, LocalDateTime to) {
+        Set<LocalDateTime> times = new HashSet<>();
+        for (DoctorDayCalendar calendar : calendarRepository.findBetween(doctorId, from.toLocalDate(), to.toLocalDate())) {
+            for (LocalDateTime time : calendar.slotTimes()) {
+                if (!time.isBefore(from) && !time.isAfter(to)) {
+                    times.add(time);
+                }
+            }
+        }
+        return times;
+    }
+
+    /**
+     * The {@code limit} earliest open slots in [from, to) of the given
+     * specialization's doctors, ordered by time, then doctor. Each query
+     * reaches the calendars through the specialization index and the
+     * (doctor, day) key, so a rare specialization reads only its own doctors'
+     * days. Windows start at one day and double until the limit is filled,
+     * so a common specialization stops after reading the first day or two.
+     */
+    @Transactional(readOnly = true)
+    public List<AvailabilityService.OpenSlot> earliestOpen(String specialization, LocalDateTime from,
+                                                           LocalDateTime to, int limit) {
+        Comparator<AvailabilityService.OpenSlot> order = Comparator.comparing(AvailabilityService.OpenSlot::availableTime)
+                .thenComparing(AvailabilityService.OpenSlot::doctorId);
+        // The best `limit` slots so far, latest on top so it can be replaced
+        PriorityQueue<AvailabilityService.OpenSlot> best = new PriorityQueue<>(limit + 1, order.reversed());
+        LocalDate lastDay = to.toLocalDate();
+        LocalDate windowStart = from.toLocalDate();
+        for (int days = 1; !windowStart.isAfter(lastDay) && best.size() < limit; days *= 2) {
+            LocalDate windowEnd = windowStart.plusDays(days - 1L);
+            if (windowEnd.isAfter(lastDay)) {
+                windowEnd = lastDay;
+            }
+            for (Object[] row : calendarRepository.findOpenDays(specialization, windowStart, windowEnd)) {
+                DoctorDayCalendar calendar = new DoctorDayCalendar(null, (LocalDate) row[2], (Long) row[3], (Long) row[4]);
+                for (LocalDateTime time : calendar.openTimes()) {
+                    if (time.isBefore(from)) {
+                        continue;
+                    }
+                    if (!time.isBefore(to) || (best.size() == limit && !time.isBefore(best.peek().availableTime()))) {
+                        // Times come in order, so the rest of this day can't do better
+                        break;
+                    }
+                    best.add(new AvailabilityService.OpenSlot((Long) row[0], (String) row[1], time));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            }
+            windowStart = windowEnd.plusDays(1);
+        }
+        return best.stream().sorted(order).toList();
+    }
+
+    /**
+     * Adds one open slot. Returns false if the doctor already has a slot,
+     * open or booked, at that time. Joins the caller's transaction.
+     */
+    @Transactional
+    public boolean add(Long doctorId, LocalDateTime time) {
+        LocalDate day = time.toLocalDate();
+        int index = DoctorDayCalendar.slotIndex(time.toLocalTime());
+        long lowBit = DoctorDayCalendar.lowBit(index);
+        long highBit = DoctorDayCalendar.highBit(index);
+        if (calendarRepository.add(doctorId, day, lowBit, highBit) == 0) {
+            // Either the slot exists or the day has no row yet; creators queue on the doctor
+            // row, so whoever comes second sees the first one's row instead of inserting a duplicate
+            doctorRepository.lockById(doctorId);
+            if (calendarRepository.add(doctorId, day, lowBit, highBit) == 0) {
+                if (!calendarRepository.findBetween(doctorId, day, day).isEmpty()) {
+                    return false;
+                }
+                calendarRepository.save(new DoctorDayCalendar(
+                        doctorRepository.getReferenceById(doctorId), day, lowBit, highBit));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Marks the times open, creating day rows as needed; booked times stay
+     * booked. Joins the caller's transaction.
+     */
+    @Transactional
+    public void open(Long doctorId, Collection<LocalDateTime> times) {
+        byDay(times).forEach((day, bits) -> {
+            if (calendarRepository.open(doctorId, day, bits[0], bits[1]) == 0) {
+                doctorRepository.lockById(doctorId);
+                if (calendarRepository.open(doctorId, day, bits[0], bits[1]) == 0) {
+                    calendarRepository.save(new DoctorDayCalendar(
+                            doctorRepository.getReferenceById(doctorId), day, bits[0], bits[1]));
+                }
+            }
+        });
+    }
+
+    /**
+     * Books the open slots among the given ones and returns those it booked.
+     * The affected day rows are read with one locking query and written back
+     * as one JDBC batch on flush. Joins the caller's transaction.
+     */
+    @Transactional
+    public Set<Slot> claim(Collection<Slot> slots) {
+        Set<Slot> claimed = new HashSet<>();
+        if (slots.isEmpty()) {
+            return claimed;
+        }
+        Set<Long> doctorIds = new HashSet<>();
+        Set<LocalDate> days = new HashSet<>();
+        for (Slot slot : slots) {
+            doctorIds.add(slot.doctorId());
+            days.add(slot.time().toLocalDate());
+        }
+        Map<String, DoctorDayCalendar> calendars = new HashMap<>();
+        for (DoctorDayCalendar calendar : calendarRepository.lockDays(doctorIds, days)) {
+            calendars.put(calendar.getDoctor().getId() + "@" + calendar.getDay(), calendar);
+        }
+
+        for (Slot slot : slots) {
+            DoctorDayCalendar calendar = calendars.get(slot.doctorId() + "@" + slot.time().toLocalDate());
+            if (DoctorDayCalendar.isOnGrid(slot.time()) && calendar != null && calendar.claim(slot.time().toLocalTime())) {
+                claimed.add(slot);
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Reopens a booked slot. Returns false if it wasn't booked. Joins the caller's transaction.
+     */
+    @Transactional
+    public boolean release(Long doctorId, LocalDateTime time) {
+        int index = DoctorDayCalendar.slotIndex(time.toLocalTime());
+        return calendarRepository.release(doctorId, time.toLocalDate(),
+                DoctorDayCalendar.lowBit(index), DoctorDayCalendar.highBit(index)) > 0;
+    }
+
+    // day -> {lowBits, highBits} covering the given times
+    private static Map<LocalDate, long[]> byDay(Collection<LocalDateTime> times) {
+        Map<LocalDate, long[]> days = new TreeMap<>();
+        for (LocalDateTime time : times) {
+            int index = DoctorDayCalendar.slotIndex(time.toLocalTime());
+            long[] bits = days.computeIfAbsent(time.toLocalDate(), day -> new long[2]);
+            bits[0] |= DoctorDayCalendar.lowBit(index);
+            bits[1] |= DoctorDayCalendar.highBit(index);
+        }
+        return days;
+    }
+}
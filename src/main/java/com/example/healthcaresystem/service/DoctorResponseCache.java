@@ -0,0 +1,85 @@
+package com.example.healthcaresystem.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Serialized JSON of the public doctor search and profile responses, keyed by
+ * normalized request parameters and bounded by total bytes. A hit is written
+ * out as-is, with no queries and no Jackson work. Any doctor write drops the
+ * whole cache, since one new doctor can change every search page.
+ */
+@Component
+public class DoctorResponseCache {
+
+    private final Cache<String, byte[]> cache;
+    private final ObjectMapper objectMapper;
+
+    // Bumped by every invalidation, so a response built from older data isn't kept
+    private final AtomicLong generation = new AtomicLong();
+
+    public DoctorResponseCache(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                               @Value("${doctor-cache.max-bytes:16777216}") long maxBytes,
+                               @Value("${doctor-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, byte[] body) -> key.length() + body.length)
+                // Safety net for doctor rows changed outside the application
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "doctor.responses");
+        Gauge.builder("doctor.responses.hit.ratio", cache, c -> c.stats().hitRate()).register(meterRegistry);
+    }
+
+    /**
+     * The cached response for the key, or the loader's value serialized as
+     * UTF-8 JSON and cached. Returns null, caching nothing, when the loader
+     * returns null; exceptions from the loader are passed through.
+     */
+    public byte[] get(String key, Supplier<?> loader) {
+        byte[] body = cache.getIfPresent(key);
+        if (body != null) {
+            return body;
+        }
+        long loadedAt = generation.get();
+        Object value = loader.get();
+        if (value == null) {
+            return null;
+        }
+        try {
+            body = objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        cache.put(key, body);
+        // Invalidated while loading: drop it again, whichever of put and clear ran first
+        if (generation.get() != loadedAt) {
+            cache.invalidate(key);
+        }
+        return body;
+    }
+
+    /**
+     * Drops every cached response. Call once a doctor change is committed and
+     * visible to searches.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+}
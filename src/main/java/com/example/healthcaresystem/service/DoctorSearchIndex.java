@@ -0,0 +1,233 @@
+package com.example.healthcaresystem.service;
+
+import com.example.healthcaresystem.model.Doctor;
+import com.example.healthcaresystem.repo.DoctorRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory substring index over doctor specializations and names, replacing
+ * {@code lower(x) like %term%} scans. Each field maps its distinct lowercased
+ * values to doctor ids, and every 1-3 character n-gram to the values that
+ * contain it. A term of up to three characters is a single gram lookup; a
+ * longer term intersects its trigrams and verifies the few candidate values.
+ * Specializations repeat heavily, so lookups touch a handful of values no
+ * matter how many doctors there are.
+ */
+@Component
+public class DoctorSearchIndex implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(DoctorSearchIndex.class);
+
+    static final int GRAM_LENGTH = 3;
+
+    private final DoctorRepository doctorRepository;
+
+    private final FieldIndex specializations = new FieldIndex();
+    private final FieldIndex names = new FieldIndex();
+
+    // doctorId -> {specialization, name} as indexed, so updates can remove the old values
+    private final Map<Long, String[]> indexed = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public DoctorSearchIndex(DoctorRepository doctorRepository) {
+        this.doctorRepository = doctorRepository;
+    }
+
+    /**
+     * Ids of doctors whose specialization and name contain the given terms
+     * (case-insensitive), ascending. A null or blank term matches everyone.
+     */
+    public List<Long> search(String specialization, String name) {
+        lock.readLock().lock();
+        try {
+            Set<Long> ids = null;
+            if (specialization != null && !specialization.isBlank()) {
+                ids = specializations.search(normalize(specialization));
+            }
+            if (name != null && !name.isBlank()) {
+                Set<Long> byName = names.search(normalize(name));
+                if (ids == null) {
+                    ids = byName;
+                } else {
+                    ids.retainAll(byName);
+                }
+            }
+            return new ArrayList<>(ids != null ? ids : new TreeSet<>(indexed.keySet()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or re-indexes a saved doctor. Call after every registration or
+     * profile change.
+     */
+    public void put(Doctor doctor) {
+        put(doctor.getId(), doctor.getSpecialization(), doctor.getName());
+    }
+
+    void put(Long id, String specialization, String name) {
+        lock.writeLock().lock();
+        try {
+            remove(id);
+            String[] values = {normalize(specialization), normalize(name)};
+            specializations.add(values[0], id);
+            names.add(values[1], id);
+            indexed.put(id, values);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            String[] values = indexed.remove(id);
+            if (values != null) {
+                specializations.remove(values[0], id);
+                names.remove(values[1], id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return indexed.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reloads the index from the doctor table.
+     */
+    public void rebuild() {
+        List<Object[]> rows = doctorRepository.findSearchFields();
+        lock.writeLock().lock();
+        try {
+            specializations.clear();
+            names.clear();
+            indexed.clear();
+            for (Object[] row : rows) {
+                put((Long) row[0], (String) row[1], (String) row[2]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Runs before the web server starts, so searches never see a partial index
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+        log.info("Indexed {} doctors for search", size());
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class FieldIndex {
+
+        // Distinct lowercased value -> ids of doctors having it
+        final Map<String, Set<Long>> idsByValue = new HashMap<>();
+
+        // 1..GRAM_LENGTH character substring -> distinct values containing it
+        final Map<String, Set<String>> valuesByGram = new HashMap<>();
+
+        void add(String value, Long id) {
+            Set<Long> ids = idsByValue.computeIfAbsent(value, v -> new HashSet<>());
+            if (ids.isEmpty()) {
+                for (String gram : grams(value)) {
+                    valuesByGram.computeIfAbsent(gram, g -> new HashSet<>()).add(value);
+                }
+            }
+            ids.add(id);
+        }
+
+        void remove(String value, Long id) {
+            Set<Long> ids = idsByValue.get(value);
+            if (ids == null || !ids.remove(id) || !ids.isEmpty()) {
+                return;
+            }
+            idsByValue.remove(value);
+            for (String gram : grams(value)) {
+                Set<String> values = valuesByGram.get(gram);
+                values.remove(value);
+                if (values.isEmpty()) {
+                    valuesByGram.remove(gram);
+                }
+            }
+        }
+
+        void clear() {
+            idsByValue.clear();
+            valuesByGram.clear();
+        }
+
+        // Ids of doctors whose value contains the (normalized, non-empty) term, sorted
+        Set<Long> search(String term) {
+            Set<Long> ids = new TreeSet<>();
+            for (String value : matchingValues(term)) {
+                ids.addAll(idsByValue.get(value));
+            }
+            return ids;
+        }
+
+        private Set<String> matchingValues(String term) {
+            if (term.length() <= GRAM_LENGTH) {
+                // Every substring this short is itself a gram, so the lookup is exact
+                return valuesByGram.getOrDefault(term, Collections.emptySet());
+            }
+
+            // Start from the rarest trigram, then confirm the candidates really contain the term
+            Set<String> smallest = null;
+            for (int i = 0; i + GRAM_LENGTH <= term.length(); i++) {
+                Set<String> values = valuesByGram.get(term.substring(i, i + GRAM_LENGTH));
+                if (values == null) {
+                    return Collections.emptySet();
+                }
+                if (smallest == null || values.size() < smallest.size()) {
+                    smallest = values;
+                }
+            }
+            Set<String> matches = new HashSet<>();
+            for (String value : smallest) {
+                if (value.contains(term)) {
+                    matches.add(value);
+                }
+            }
+            return matches;
+        }
+
+        private static Set<String> grams(String value) {
+            Set<String> grams = new HashSet<>();
+            for (int length = 1; length <= GRAM_LENGTH; length++) {
+                for (int i = 0; i + length <= value.length(); i++) {
+                    grams.add(value.substring(i, i + length));
+                }
+            }
+            return grams;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.healthcaresystem.service;
+
+import com.example.healthcaresystem.service.UnifiedUserDetailsService.ImportRow;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads import rows one line at a time from CSV (header row first) or NDJSON,
+ * so an upload of any size is never held in memory. Lines that can't be
+ * parsed come back as rows carrying an error instead of stopping the import.
+ */
+public class ImportRowReader implements Iterator<ImportRow> {
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    private final BufferedReader reader;
+    private final Format format;
+    private final ObjectMapper objectMapper;
+
+    private List<String> header;
+    private int lineNumber;
+    private ImportRow next;
+
+    public ImportRowReader(BufferedReader reader, Format format, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = readRow();
+        }
+        return next != null;
+    }
+
+    @Override
+    public ImportRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ImportRow row = next;
+        next = null;
+        return row;
+    }
+
+    private ImportRow readRow() {
+        String line;
+        do {
+            line = readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        if (format == Format.NDJSON) {
+            return ndjsonRow(line);
+        }
+        if (header == null) {
+            List<String> names = splitCsv(line);
+            if (names == null) {
+                throw new IllegalArgumentException("Malformed CSV header on line " + lineNumber);
+            }
+            header = names.stream().map(name -> name.trim().toLowerCase(Locale.ROOT)).toList();
+            return readRow();
+        }
+        return csvRow(line);
+    }
+
+    private String readLine() {
+        try {
+            String line = reader.readLine();
+            if (line != null) {
+                lineNumber++;
+            }
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ImportRow ndjsonRow(String line) {
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            if (!node.isObject()) {
+                return new ImportRow(lineNumber, Map.of(), "Expected a JSON object");
+            }
+            Map<String, String> fields = new HashMap<>();
+            for (Map.Entry<String, JsonNode> field : node.properties()) {
+                if (!field.getValue().isNull()) {
+                    fields.put(field.getKey().toLowerCase(Locale.ROOT), field.getValue().asText().trim());
+                }
+            }
+            return new ImportRow(lineNumber, fields, null);
+        } catch (JsonProcessingException e) {
+            return new ImportRow(lineNumber, Map.of(), "Malformed JSON");
+        }
+    }
+
+    private ImportRow csvRow(String line) {
+        List<String> values = splitCsv(line);
+        if (values == null) {
+            return new ImportRow(lineNumber, Map.of(), "Unterminated quoted field");
+        }
+        if (values.size() != header.size()) {
+            return new ImportRow(lineNumber, Map.of(),
+                    "Expected " + header.size() + " columns but found " + values.size());
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            String value = values.get(i).trim();
+            if (!value.isEmpty()) {
+                fields.put(header.get(i), value);
+            }
+        }
+        return new ImportRow(lineNumber, fields, null);
+    }
+
+    // RFC 4180 fields on a single line; null if a quote is left open
+    private static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
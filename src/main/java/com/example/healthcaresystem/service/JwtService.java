@@ -1,14 +1,24 @@
 package com.example.healthcaresystem.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -19,53 +29,127 @@ public class JwtService {
 
     public static final String SECRET = "5367566859703373367639792F423F452848284D6251655468576D5A71347437";
 
+    // Claim names carried by role-aware tokens
+    public static final String ROLE_CLAIM = "role";
+    public static final String ACCOUNT_ID_CLAIM = "uid";
+
+    // Key and parser are immutable and thread-safe, so build them once
+    private final Key signKey;
+    private final JwtParser parser;
+
+    // SHA-256 digest of a verified token -> its claims, until the token expires; when full,
+    // the least recently/frequently used tokens go first, so active sessions stay cached
+    private final Cache<String, VerifiedToken> verifiedTokens;
+    private final int claimsCacheSize;
+
+    public JwtService(@Value("${security.jwt.claims-cache-size:10000}") int claimsCacheSize) {
+        this.signKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        this.parser = Jwts.parserBuilder().setSigningKey(signKey).build();
+        this.claimsCacheSize = claimsCacheSize;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(Math.max(claimsCacheSize, 0))
+                .expireAfter(Expiry.creating((String digest, VerifiedToken token) ->
+                        Duration.ofMillis(Math.max(token.expiresAt() - System.currentTimeMillis(), 0))))
+                .build();
+    }
+
     public String generateToken(String email) { // Use email as username
         Map<String, Object> claims = new HashMap<>();
         return createToken(claims, email);
     }
 
+    /**
+     * Generates a token that also carries the user's role and account id,
+     * so the auth filter can build the Authentication without a database lookup.
+     */
+    public String generateToken(String email, String role, Long accountId) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(ROLE_CLAIM, role);
+        claims.put(ACCOUNT_ID_CLAIM, accountId);
+        return createToken(claims, email);
+    }
+
     private String createToken(Map<String, Object> claims, String email) {
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(email)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 30))
-                .signWith(getSignKey(), SignatureAlgorithm.HS256)
+                .signWith(signKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    private Key getSignKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET);
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * Verifies the token and returns its claims. Tokens verified recently are
+     * served from a bounded cache until they expire, skipping the HMAC check
+     * and JSON decoding. Invalid or expired tokens throw like the parser does.
+     */
+    public Claims parseToken(String token) {
+        if (claimsCacheSize <= 0) {
+            return parser.parseClaimsJws(token).getBody();
+        }
+
+        // Expired entries are never returned, so a cached token is still valid
+        String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            return cached.claims();
+        }
+
+        // Full verification; throws ExpiredJwtException, SignatureException, etc.
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            verifiedTokens.put(digest, new VerifiedToken(claims, expiration.getTime()));
+        }
+        return claims;
+    }
+
+    // Number of tokens currently cached, after pending evictions; exposed for tests
+    long cachedTokenCount() {
+        verifiedTokens.cleanUp();
+        return verifiedTokens.estimatedSize();
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
 
+    public String extractRole(String token) {
+        return extractClaim(token, claims -> claims.get(ROLE_CLAIM, String.class));
+    }
+
     public Date extractExpiration(String token) {
         return extractClaim(token, Claims::getExpiration);
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = parseToken(token);
         return claimsResolver.apply(claims);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    public Boolean validateToken(String token, UserDetails userDetails) {
+        return validateToken(parseToken(token), userDetails);
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    /**
+     * Validates already-parsed claims, so callers that parsed the token once
+     * don't pay for a second verification.
+     */
+    public Boolean validateToken(Claims claims, UserDetails userDetails) {
+        final String username = claims.getSubject();
+        return (username.equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date()));
     }
 
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
-    }
+    private record VerifiedToken(Claims claims, long expiresAt) {}
 }
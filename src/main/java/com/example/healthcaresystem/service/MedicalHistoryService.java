@@ -0,0 +1,95 @@
+package com.example.healthcaresystem.service;
+
+import com.example.healthcaresystem.model.MedicalHistoryEntry;
+import com.example.healthcaresystem.repo.MedicalHistoryEntryRepository;
+import com.example.healthcaresystem.repo.PatientRepository;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Patient medical history as append-only, versioned entries. Updates add a
+ * new entry instead of rewriting the patient row, and reads page backwards
+ * from the latest version, so the history never travels with the patient.
+ * An update that extends the current text stores only the added part, so a
+ * history grown by repeated additions takes space linear in its length.
+ */
+@Service
+public class MedicalHistoryService {
+
+    private final MedicalHistoryEntryRepository entryRepository;
+    private final PatientRepository patientRepository;
+
+    public MedicalHistoryService(MedicalHistoryEntryRepository entryRepository,
+                                 PatientRepository patientRepository) {
+        this.entryRepository = entryRepository;
+        this.patientRepository = patientRepository;
+    }
+
+    /**
+     * Makes content the patient's current history as the next version. When
+     * expectedVersion is given it must still be the latest version, so a
+     * client working from a stale read is refused rather than silently
+     * interleaved. Two concurrent updates for the same patient collide on the
+     * (patient, version) key. Unchanged content adds no version.
+     */
+    @Transactional
+    public MedicalHistoryEntry append(Long patientId, String content, Integer expectedVersion) {
+        if (!patientRepository.existsById(patientId)) {
+            throw new IllegalArgumentException("Patient not found");
+        }
+        List<MedicalHistoryEntry> pieces = entryRepository.findSinceLastReplace(patientId);
+        MedicalHistoryEntry latest = pieces.isEmpty() ? null : pieces.get(pieces.size() - 1);
+        int latestVersion = latest == null ? 0 : latest.getVersion();
+        if (expectedVersion != null && expectedVersion != latestVersion) {
+            throw new IllegalStateException("Medical history is at version " + latestVersion + ", not " + expectedVersion);
+        }
+
+        String current = join(pieces);
+        if (content.equals(current)) {
+            return latest;
+        }
+        MedicalHistoryEntry entry = current != null && content.startsWith(current)
+                ? new MedicalHistoryEntry(patientRepository.getReferenceById(patientId), latestVersion + 1,
+                        MedicalHistoryEntry.Kind.APPEND, content.substring(current.length()), LocalDateTime.now())
+                : new MedicalHistoryEntry(patientRepository.getReferenceById(patientId), latestVersion + 1,
+                        MedicalHistoryEntry.Kind.REPLACE, content, LocalDateTime.now());
+        return entryRepository.saveAndFlush(entry);
+    }
+
+    /**
+     * The patient's current history text, or null when there is none.
+     */
+    @Transactional(readOnly = true)
+    public String currentText(Long patientId) {
+        return join(entryRepository.findSinceLastReplace(patientId));
+    }
+
+    /**
+     * Newest entries first; beforeVersion continues from a previous page.
+     */
+    @Transactional(readOnly = true)
+    public Slice<MedicalHistoryEntry> recent(Long patientId, Integer beforeVersion, int size) {
+        PageRequest page = PageRequest.of(0, size);
+        return beforeVersion == null
+                ? entryRepository.findRecent(patientId, page)
+                : entryRepository.findRecentBefore(patientId, beforeVersion, page);
+    }
+
+    // The latest REPLACE entry's text followed by the APPEND entries after it
+    private static String join(List<MedicalHistoryEntry> pieces) {
+        if (pieces.isEmpty()) {
+            return null;
+        }
+        StringBuilder text = new StringBuilder();
+        for (MedicalHistoryEntry piece : pieces) {
+            text.append(piece.getContent());
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.healthcaresystem.service;
+
+import com.example.healthcaresystem.model.AppointmentSummary;
+import com.example.healthcaresystem.model.MedicalHistoryEntry;
+import com.example.healthcaresystem.model.Patient;
+import com.example.healthcaresystem.repo.AppointmentRepository;
+import com.example.healthcaresystem.repo.PatientRepository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.NoSuchElementException;
+
+/**
+ * Read side of patient medical records. The patient, one page of records and
+ * the current history are loaded in one read-only transaction, so the
+ * connection goes back to the pool before the response is serialized.
+ */
+@Service
+public class MedicalRecordService {
+
+    /**
+     * One page of completed appointments with notes plus the current history
+     * text and newest history entries; totalItems is null unless a count was
+     * asked for.
+     */
+    public record MedicalRecords(Patient patient, Slice<AppointmentSummary> records, Long totalItems,
+                                 String medicalHistory, Slice<MedicalHistoryEntry> history) {}
+
+    private final AppointmentRepository appointmentRepository;
+    private final PatientRepository patientRepository;
+    private final MedicalHistoryService medicalHistoryService;
+
+    public MedicalRecordService(AppointmentRepository appointmentRepository,
+                                PatientRepository patientRepository,
+                                MedicalHistoryService medicalHistoryService) {
+        this.appointmentRepository = appointmentRepository;
+        this.patientRepository = patientRepository;
+        this.medicalHistoryService = medicalHistoryService;
+    }
+
+    /**
+     * Records newest first, after the (time, id) of the last one seen when
+     * beforeTime is given, with up to historySize history entries.
+     */
+    @Transactional(readOnly = true)
+    public MedicalRecords records(Long patientId, LocalDateTime beforeTime, Long beforeId, Pageable pageable,
+                                  boolean count, int historySize) {
+        Patient patient = patientRepository.findById(patientId)
+                .orElseThrow(() -> new NoSuchElementException("Patient not found"));
+        Slice<AppointmentSummary> records = beforeTime == null
+                ? appointmentRepository.findMedicalRecords(patientId, pageable)
+                : appointmentRepository.findMedicalRecordsBefore(patientId, beforeTime, beforeId, pageable);
+        return new MedicalRecords(patient, records,
+                count ? appointmentRepository.countMedicalRecords(patientId) : null,
+                medicalHistoryService.currentText(patientId),
+                medicalHistoryService.recent(patientId, null, historySize));
+    }
+
+    /**
+     * A page of the patient's history entries, newest first.
+     */
+    @Transactional(readOnly = true)
+    public Slice<MedicalHistoryEntry> history(Long patientId, Integer beforeVersion, int size) {
+        if (!patientRepository.existsById(patientId)) {
+            throw new NoSuchElementException("Patient not found");
+        }
+        return medicalHistoryService.recent(patientId, beforeVersion, size);
+    }
+}
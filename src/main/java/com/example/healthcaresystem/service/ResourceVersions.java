@@ -0,0 +1,55 @@
+package com.example.healthcaresystem.service;
+
+import com.example.healthcaresystem.model.DoctorDayCalendar;
+import com.example.healthcaresystem.repo.AppointmentRepository;
+import com.example.healthcaresystem.repo.DoctorDayCalendarRepository;
+import com.example.healthcaresystem.repo.DoctorRepository;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Strong ETags for polled reads, derived from the version columns of the rows
+ * behind each resource. Every instance computes the same tag from the same
+ * data, so a matching If-None-Match can be answered with 304 after one small
+ * indexed query instead of loading the resource. Callers take the tag before
+ * reading, so a response is never tagged newer than its data.
+ */
+@Component
+public class ResourceVersions {
+
+    private final DoctorRepository doctorRepository;
+    private final DoctorDayCalendarRepository calendarRepository;
+    private final AppointmentRepository appointmentRepository;
+
+    public ResourceVersions(DoctorRepository doctorRepository,
+                            DoctorDayCalendarRepository calendarRepository,
+                            AppointmentRepository appointmentRepository) {
+        this.doctorRepository = doctorRepository;
+        this.calendarRepository = calendarRepository;
+        this.appointmentRepository = appointmentRepository;
+    }
+
+    public String doctorTag(Long doctorId) {
+        return tag("d", doctorId, doctorRepository.findVersionById(doctorId).map(String::valueOf).orElse("none"));
+    }
+
+    /**
+     * Availability lists open times after now, so the tag also moves at every
+     * slot boundary, when the earliest listed slot drops off.
+     */
+    public String availabilityTag(Long doctorId, LocalDateTime now) {
+        long boundary = now.toEpochSecond(ZoneOffset.UTC) / 60 / DoctorDayCalendar.SLOT_MINUTES;
+        return tag("a", doctorId, calendarRepository.findVersion(doctorId) + "-" + Long.toString(boundary, 36));
+    }
+
+    public String patientAppointmentsTag(Long patientId) {
+        return tag("p", patientId, appointmentRepository.findPatientVersion(patientId));
+    }
+
+    private static String tag(String kind, Long id, String version) {
+        return "\"" + kind + id + "-" + version + "\"";
+    }
+}
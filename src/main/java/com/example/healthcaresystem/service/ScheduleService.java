@@ -0,0 +1,105 @@
+package com.example.healthcaresystem.service;
+
+import com.example.healthcaresystem.model.Appointment;
+import com.example.healthcaresystem.model.AppointmentSummary;
+import com.example.healthcaresystem.model.Doctor;
+import com.example.healthcaresystem.model.Patient;
+import com.example.healthcaresystem.repo.AppointmentRepository;
+import com.example.healthcaresystem.repo.DoctorRepository;
+import com.example.healthcaresystem.repo.PatientRepository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.NoSuchElementException;
+
+/**
+ * Read side of doctor schedules and patient appointment lists. Each call
+ * loads the owner and its appointment rows in one read-only transaction, so
+ * a request holds a pooled connection only while these queries run and
+ * never while the response is written.
+ */
+@Service
+public class ScheduleService {
+
+    /**
+     * A doctor or patient with one page of their appointments; totalItems is
+     * null unless a count was asked for.
+     */
+    public record AppointmentListing<T>(T owner, Slice<AppointmentSummary> appointments, Long totalItems) {}
+
+    private final AppointmentRepository appointmentRepository;
+    private final DoctorRepository doctorRepository;
+    private final PatientRepository patientRepository;
+
+    public ScheduleService(AppointmentRepository appointmentRepository,
+                           DoctorRepository doctorRepository,
+                           PatientRepository patientRepository) {
+        this.appointmentRepository = appointmentRepository;
+        this.doctorRepository = doctorRepository;
+        this.patientRepository = patientRepository;
+    }
+
+    /**
+     * A doctor's appointments in [from, to) in time order, optionally of one status.
+     */
+    @Transactional(readOnly = true)
+    public AppointmentListing<Doctor> doctorWindow(Long doctorId, LocalDateTime from, LocalDateTime to,
+                                                   Appointment.Status status, Pageable pageable) {
+        Doctor doctor = doctor(doctorId);
+        return new AppointmentListing<>(doctor,
+                appointmentRepository.findDoctorSchedule(doctorId, from, to, status, pageable), null);
+    }
+
+    /**
+     * A doctor's appointments newest first, after the (time, id) of the last
+     * one seen when beforeTime is given.
+     */
+    @Transactional(readOnly = true)
+    public AppointmentListing<Doctor> doctorHistory(Long doctorId, LocalDateTime beforeTime, Long beforeId,
+                                                    Pageable pageable, boolean count) {
+        Doctor doctor = doctor(doctorId);
+        Slice<AppointmentSummary> appointments = beforeTime == null
+                ? appointmentRepository.findDoctorHistory(doctorId, pageable)
+                : appointmentRepository.findDoctorHistoryBefore(doctorId, beforeTime, beforeId, pageable);
+        return new AppointmentListing<>(doctor, appointments,
+                count ? appointmentRepository.countByDoctorId(doctorId) : null);
+    }
+
+    /**
+     * A patient's appointments newest first, after the (time, id) of the last
+     * one seen when beforeTime is given.
+     */
+    @Transactional(readOnly = true)
+    public AppointmentListing<Patient> patientHistory(Long patientId, LocalDateTime beforeTime, Long beforeId,
+                                                      Pageable pageable, boolean count) {
+        Patient patient = patient(patientId);
+        Slice<AppointmentSummary> appointments = beforeTime == null
+                ? appointmentRepository.findPatientHistory(patientId, pageable)
+                : appointmentRepository.findPatientHistoryBefore(patientId, beforeTime, beforeId, pageable);
+        return new AppointmentListing<>(patient, appointments,
+                count ? appointmentRepository.countByPatientId(patientId) : null);
+    }
+
+    /**
+     * Every appointment of a patient, newest first, as a single slice.
+     */
+    @Transactional(readOnly = true)
+    public AppointmentListing<Patient> allPatientAppointments(Long patientId) {
+        Patient patient = patient(patientId);
+        return new AppointmentListing<>(patient,
+                new SliceImpl<>(appointmentRepository.findSummariesByPatient(patientId)), null);
+    }
+
+    private Doctor doctor(Long doctorId) {
+        return doctorRepository.findById(doctorId).orElseThrow(() -> new NoSuchElementException("Doctor not found"));
+    }
+
+    private Patient patient(Long patientId) {
+        return patientRepository.findById(patientId).orElseThrow(() -> new NoSuchElementException("Patient not found"));
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.healthcaresystem.service;
+
+import com.example.healthcaresystem.model.CompressedTextConverter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rewrites clinical text rows stored before compression existed. The rewrite
+ * runs in the background in id order, one batch per statement group, and only
+ * replaces a value if it is still the one that was read, so concurrent edits
+ * are never lost. The columns are made binary by the V2 migration.
+ */
+@Service
+public class TextRecompressionService {
+
+    private static final Logger log = LoggerFactory.getLogger(TextRecompressionService.class);
+
+    private record TextColumn(String table, String column, boolean nullable) {}
+
+    private static final List<TextColumn> COLUMNS = List.of(
+            new TextColumn("appointment", "notes", true),
+            new TextColumn("medical_history_entry", "content", false));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CompressedTextConverter converter;
+    private final boolean recompressOnStartup;
+    private final int batchSize;
+
+    public TextRecompressionService(JdbcTemplate jdbcTemplate,
+                                    CompressedTextConverter converter,
+                                    @Value("${storage.compression.recompress-on-startup:false}") boolean recompressOnStartup,
+                                    @Value("${storage.compression.recompress-batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.converter = converter;
+        this.recompressOnStartup = recompressOnStartup;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startRecompression() {
+        if (!recompressOnStartup) {
+            return;
+        }
+        Thread worker = new Thread(() -> COLUMNS.forEach(this::recompress), "text-recompression");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Rewrites every uncompressed value in the column that the converter would
+     * now store differently: large text compressed, blank text as null.
+     */
+    private void recompress(TextColumn target) {
+        String select = "SELECT id, " + target.column() + " FROM " + target.table() +
+                " WHERE id > ? AND " + target.column() + " IS NOT NULL ORDER BY id LIMIT ?";
+        String update = "UPDATE " + target.table() + " SET " + target.column() + " = ? WHERE id = ? AND " +
+                target.column() + " = ?";
+
+        long lastId = 0;
+        long rewritten = 0;
+        long bytesBefore = 0;
+        long bytesAfter = 0;
+        try {
+            while (true) {
+                List<Object[]> rows = jdbcTemplate.query(select,
+                        (rs, rowNum) -> new Object[] {rs.getLong(1), rs.getBytes(2)}, lastId, batchSize);
+                if (rows.isEmpty()) {
+                    break;
+                }
+
+                List<Object[]> changes = new ArrayList<>();
+                for (Object[] row : rows) {
+                    byte[] stored = (byte[]) row[1];
+                    if (CompressedTextConverter.isCompressed(stored)) {
+                        continue;
+                    }
+                    byte[] recompressed = converter.convertToDatabaseColumn(converter.convertToEntityAttribute(stored));
+                    if (Arrays.equals(stored, recompressed) || (recompressed == null && !target.nullable())) {
+                        continue;
+                    }
+                    changes.add(new Object[] {recompressed, row[0], stored});
+                    bytesBefore += stored.length;
+                    bytesAfter += recompressed == null ? 0 : recompressed.length;
+                }
+                if (!changes.isEmpty()) {
+                    for (int updated : jdbcTemplate.batchUpdate(update, changes)) {
+                        rewritten += Math.max(updated, 0);
+                    }
+                }
+                lastId = (Long) rows.get(rows.size() - 1)[0];
+            }
+        } catch (DataAccessException e) {
+            log.warn("Recompression of {}.{} stopped after id {}: {}", target.table(), target.column(), lastId, e.getMessage());
+        }
+        if (rewritten > 0) {
+            log.info("Recompressed {} rows of {}.{}: {} bytes down to {}",
+                    rewritten, target.table(), target.column(), bytesBefore, bytesAfter);
+        }
+    }
+}
@@ -1,77 +1,348 @@
 package com.example.healthcaresystem.service;
 
+import com.example.healthcaresystem.config.PooledPasswordEncoder;
+import com.example.healthcaresystem.model.AccountPrincipal;
 import com.example.healthcaresystem.model.Doctor;
 import com.example.healthcaresystem.model.Patient;
+import com.example.healthcaresystem.model.UserAccount;
 import com.example.healthcaresystem.repo.DoctorRepository;
 import com.example.healthcaresystem.repo.PatientRepository;
+import com.example.healthcaresystem.repo.UserAccountRepository;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Arrays;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.regex.Pattern;
 
 @Service
-public class UnifiedUserDetailsService implements UserDetailsService {
+public class UnifiedUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+
+    private static final Logger log = LoggerFactory.getLogger(UnifiedUserDetailsService.class);
+
+    // Rows per import transaction: one dedupe query, one hashing fan-out and a few JDBC batches each
+    static final int IMPORT_CHUNK_SIZE = 1000;
+
+    // Account text columns are VARCHAR(255)
+    private static final int MAX_FIELD_LENGTH = 255;
+    private static final int MAX_PASSWORD_BYTES = 72;
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("[^@\\s]+@[^@\\s]+\\.[^@\\s]+");
+
+    private static final String INSERT_DOCTOR_SQL = "INSERT INTO doctor " +
+            "(name, specialization, email, phone, password) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String INSERT_PATIENT_SQL = "INSERT INTO patient " +
+            "(name, email, phone, dob, password) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String INSERT_ACCOUNT_SQL = "INSERT INTO user_account " +
+            "(email, role, entity_id, display_name, password_hash) VALUES (?, ?, ?, ?, ?)";
 
     private final DoctorRepository doctorRepository;
     private final PatientRepository patientRepository;
+    private final UserAccountRepository accountRepository;
     private final PasswordEncoder encoder;
+    private final TransactionTemplate transactionTemplate;
+    private final DoctorSearchIndex searchIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final DoctorCacheEvictor cacheEvictor;
+    private final DoctorResponseCache responseCache;
 
     @Autowired
-    public UnifiedUserDetailsService(DoctorRepository doctorRepository, 
+    public UnifiedUserDetailsService(DoctorRepository doctorRepository,
                                    PatientRepository patientRepository,
-                                   PasswordEncoder encoder) {
+                                   UserAccountRepository accountRepository,
+                                   PasswordEncoder encoder,
+                                   PlatformTransactionManager transactionManager,
+                                   DoctorSearchIndex searchIndex,
+                                   JdbcTemplate jdbcTemplate,
+                                   DoctorCacheEvictor cacheEvictor,
+                                   DoctorResponseCache responseCache) {
         this.doctorRepository = doctorRepository;
         this.patientRepository = patientRepository;
+        this.accountRepository = accountRepository;
         this.encoder = encoder;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.searchIndex = searchIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheEvictor = cacheEvictor;
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * One line of an import file. {@code error} is set when the line could not be parsed.
+     */
+    public record ImportRow(int line, Map<String, String> fields, String error) {}
+
+    public record ImportResult(long processed, long imported, long failed) {}
+
+    /**
+     * Receives import progress as it happens, so callers can stream it back.
+     */
+    public interface ImportListener {
+        void rowFailed(ImportRow row, String error);
+
+        void chunkCommitted(long processed, long imported);
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        // First try to find as a doctor
-        Optional<Doctor> doctor = doctorRepository.findByEmail(username);
-        if (doctor.isPresent()) {
-            Doctor doc = doctor.get();
-            List<SimpleGrantedAuthority> authorities = Arrays.asList(new SimpleGrantedAuthority("ROLE_DOCTOR"));
-            return new User(doc.getEmail(), doc.getPassword(), authorities);
-        }
-
-        // Then try to find as a patient
-        Optional<Patient> patient = patientRepository.findByEmail(username);
-        if (patient.isPresent()) {
-            Patient pat = patient.get();
-            List<SimpleGrantedAuthority> authorities = Arrays.asList(new SimpleGrantedAuthority("ROLE_PATIENT"));
-            return new User(pat.getEmail(), pat.getPassword(), authorities);
+        // Single indexed lookup in the account directory
+        Optional<UserAccount> account = accountRepository.findByEmail(username);
+        if (account.isPresent()) {
+            return AccountPrincipal.of(account.get());
         }
 
         throw new UsernameNotFoundException("User not found with email: " + username);
     }
 
     public String addDoctor(Doctor doctor) {
-        // Encrypt password before saving
+        // Encrypt password before saving; hash outside the transaction so no connection is held meanwhile
         doctor.setPassword(encoder.encode(doctor.getPassword()));
-        doctorRepository.save(doctor);
+        transactionTemplate.executeWithoutResult(status -> {
+            doctorRepository.save(doctor);
+            accountRepository.save(new UserAccount(doctor.getEmail(), UserAccount.Role.DOCTOR,
+                    doctor.getId(), doctor.getName(), doctor.getPassword()));
+            cacheEvictor.evictDoctor(doctor.getId());
+        });
+        // Only searchable once committed
+        publish(List.of(doctor));
         return "Doctor added successfully!";
     }
 
     public String addPatient(Patient patient) {
-        // Encrypt password before saving
+        // Encrypt password before saving; hash outside the transaction so no connection is held meanwhile
         patient.setPassword(encoder.encode(patient.getPassword()));
-        patientRepository.save(patient);
+        transactionTemplate.executeWithoutResult(status -> {
+            patientRepository.save(patient);
+            accountRepository.save(new UserAccount(patient.getEmail(), UserAccount.Role.PATIENT,
+                    patient.getId(), patient.getName(), patient.getPassword()));
+        });
         return "Patient added successfully!";
     }
 
+    /**
+     * Registers doctors or patients in bulk. Rows are taken in chunks; per chunk
+     * emails are checked with one set-based query, passwords are hashed in
+     * parallel and entities and accounts are inserted as JDBC batches in one
+     * transaction. Bad rows are reported to the listener and skipped.
+     */
+    public ImportResult importAccounts(UserAccount.Role role, Iterator<ImportRow> rows, ImportListener listener) {
+        long processed = 0;
+        long imported = 0;
+        List<ImportRow> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        while (rows.hasNext()) {
+            chunk.add(rows.next());
+            if (chunk.size() == IMPORT_CHUNK_SIZE || !rows.hasNext()) {
+                imported += importChunk(role, chunk, listener);
+                processed += chunk.size();
+                chunk.clear();
+                listener.chunkCommitted(processed, imported);
+                log.info("Import of {} accounts: {} rows processed, {} imported", role, processed, imported);
+            }
+        }
+        return new ImportResult(processed, imported, processed - imported);
+    }
+
+    private int importChunk(UserAccount.Role role, List<ImportRow> chunk, ImportListener listener) {
+        // Valid rows keyed by lowercased email, so duplicates match the way the unique index does
+        Map<String, ImportRow> byEmail = new LinkedHashMap<>();
+        for (ImportRow row : chunk) {
+            String error = row.error() != null ? row.error() : validateRegistration(role, row.fields());
+            if (error == null && byEmail.putIfAbsent(emailKey(row), row) != null) {
+                error = "Duplicate email in import";
+            }
+            if (error != null) {
+                listener.rowFailed(row, error);
+            }
+        }
+        if (byEmail.isEmpty()) {
+            return 0;
+        }
+
+        for (String existing : accountRepository.findExistingEmails(byEmail.keySet())) {
+            ImportRow row = byEmail.remove(existing.toLowerCase(Locale.ROOT));
+            if (row != null) {
+                listener.rowFailed(row, "Email already exists");
+            }
+        }
+        List<ImportRow> accepted = new ArrayList<>(byEmail.values());
+        if (accepted.isEmpty()) {
+            return 0;
+        }
+
+        List<String> passwords = accepted.stream().map(row -> row.fields().get("password")).toList();
+        List<String> hashes = encoder instanceof PooledPasswordEncoder pooled
+                ? pooled.encodeAll(passwords)
+                : passwords.stream().map(encoder::encode).toList();
+
+        try {
+            List<Doctor> doctors = transactionTemplate.execute(status -> insertAccounts(role, accepted, hashes));
+            publish(doctors);
+            return accepted.size();
+        } catch (DataIntegrityViolationException e) {
+            // An email was registered concurrently: fall back to row-at-a-time for this chunk
+            int imported = 0;
+            for (int i = 0; i < accepted.size(); i++) {
+                List<ImportRow> single = List.of(accepted.get(i));
+                List<String> hash = List.of(hashes.get(i));
+                try {
+                    publish(transactionTemplate.execute(status -> insertAccounts(role, single, hash)));
+                    imported++;
+                } catch (DataIntegrityViolationException duplicate) {
+                    listener.rowFailed(accepted.get(i), "Email already exists");
+                }
+            }
+            return imported;
+        }
+    }
+
+    // Makes committed doctors searchable and drops cached search and profile responses
+    private void publish(List<Doctor> doctors) {
+        if (doctors.isEmpty()) {
+            return;
+        }
+        for (Doctor doctor : doctors) {
+            searchIndex.put(doctor);
+        }
+        responseCache.invalidateAll();
+    }
+
+    // Inserts within the caller's transaction; returns the created doctors (none for patients)
+    private List<Doctor> insertAccounts(UserAccount.Role role, List<ImportRow> rows, List<String> hashes) {
+        List<Object[]> entities = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Map<String, String> fields = rows.get(i).fields();
+            entities.add(role == UserAccount.Role.DOCTOR
+                    ? new Object[] {fields.get("name"), fields.get("specialization"), fields.get("email"),
+                            fields.get("phone"), hashes.get(i)}
+                    : new Object[] {fields.get("name"), fields.get("email"), fields.get("phone"),
+                            LocalDate.parse(fields.get("dob")), hashes.get(i)});
+        }
+        List<Long> ids = insertReturningIds(role == UserAccount.Role.DOCTOR ? INSERT_DOCTOR_SQL : INSERT_PATIENT_SQL, entities);
+
+        List<Object[]> accounts = new ArrayList<>(rows.size());
+        List<Doctor> doctors = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            Map<String, String> fields = rows.get(i).fields();
+            accounts.add(new Object[] {fields.get("email"), role.name(), ids.get(i), fields.get("name"), hashes.get(i)});
+            if (role == UserAccount.Role.DOCTOR) {
+                Doctor doctor = new Doctor(fields.get("name"), fields.get("specialization"), fields.get("email"),
+                        fields.get("phone"), hashes.get(i));
+                doctor.setId(ids.get(i));
+                doctors.add(doctor);
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_ACCOUNT_SQL, accounts);
+        return doctors;
+    }
+
+    // One JDBC batch; IDENTITY ids come back as generated keys, in row order
+    private List<Long> insertReturningIds(String sql, List<Object[]> rows) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        new ArgumentPreparedStatementSetter(rows.get(i)).setValues(ps);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                }, keys);
+        return keys.getKeyList().stream()
+                .map(key -> ((Number) key.values().iterator().next()).longValue())
+                .toList();
+    }
+
+    /**
+     * Checks the fields of one registration, single or imported, against what
+     * the schema and the password encoder accept. Returns the error message,
+     * or null if the account can be created.
+     */
+    public static String validateRegistration(UserAccount.Role role, Map<String, String> fields) {
+        List<String> required = role == UserAccount.Role.DOCTOR
+                ? List.of("name", "email", "password", "specialization", "phone")
+                : List.of("name", "email", "password", "phone", "dob");
+        for (String field : required) {
+            String value = fields.get(field);
+            if (value == null || value.isBlank()) {
+                return "Missing " + field;
+            }
+            if (value.length() > MAX_FIELD_LENGTH) {
+                return field + " must be at most " + MAX_FIELD_LENGTH + " characters";
+            }
+        }
+        if (!EMAIL_PATTERN.matcher(fields.get("email")).matches()) {
+            return "Invalid email";
+        }
+        // BCrypt only uses the first 72 bytes and the encoder rejects longer passwords
+        if (fields.get("password").getBytes(StandardCharsets.UTF_8).length > MAX_PASSWORD_BYTES) {
+            return "password must be at most " + MAX_PASSWORD_BYTES + " bytes";
+        }
+        if (role == UserAccount.Role.PATIENT) {
+            try {
+                LocalDate.parse(fields.get("dob"));
+            } catch (DateTimeParseException e) {
+                return "Invalid dob, expected yyyy-MM-dd";
+            }
+        }
+        return null;
+    }
+
+    private static String emailKey(ImportRow row) {
+        return row.fields().get("email").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Stores a re-encoded password after a successful login whose stored hash
+     * was produced with a weaker BCrypt cost than currently configured.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        UserAccount account = accountRepository.findByEmail(user.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + user.getUsername()));
+        account.setPasswordHash(newPassword);
+
+        if (account.getRole() == UserAccount.Role.DOCTOR) {
+            doctorRepository.findById(account.getEntityId()).ifPresent(doc -> doc.setPassword(newPassword));
+        } else {
+            patientRepository.findById(account.getEntityId()).ifPresent(pat -> pat.setPassword(newPassword));
+        }
+        return AccountPrincipal.of(account);
+    }
+
     public boolean emailExists(String email) {
-        return doctorRepository.findByEmail(email).isPresent() || 
-               patientRepository.findByEmail(email).isPresent();
+        return accountRepository.existsByEmail(email);
     }
 }
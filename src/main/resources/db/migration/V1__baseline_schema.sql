@@ -0,0 +1,41 @@
+-- Schema as deployed before versioned migrations; existing databases are baselined at this version
+CREATE TABLE doctor (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255),
+    specialization VARCHAR(255),
+    email VARCHAR(255),
+    phone VARCHAR(255),
+    password VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE patient (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255),
+    email VARCHAR(255),
+    phone VARCHAR(255),
+    dob DATE,
+    password VARCHAR(255),
+    medical_history TEXT,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE appointment (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    doctor_id BIGINT,
+    patient_id BIGINT,
+    appointment_time DATETIME(6),
+    status ENUM('CANCELLED', 'COMPLETED', 'SCHEDULED'),
+    notes VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_appointment_doctor FOREIGN KEY (doctor_id) REFERENCES doctor (id),
+    CONSTRAINT fk_appointment_patient FOREIGN KEY (patient_id) REFERENCES patient (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE doctor_available_slot (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    doctor_id BIGINT,
+    available_time DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_slot_doctor FOREIGN KEY (doctor_id) REFERENCES doctor (id)
+) ENGINE=InnoDB;
@@ -0,0 +1,60 @@
+-- Login directory: one row per account, resolved by email
+CREATE TABLE user_account (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    email VARCHAR(255) NOT NULL,
+    role ENUM('DOCTOR', 'PATIENT') NOT NULL,
+    entity_id BIGINT NOT NULL,
+    display_name VARCHAR(255),
+    password_hash VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_user_account_email UNIQUE (email)
+) ENGINE=InnoDB;
+
+-- Pooled table ids; segments are raised above the current max ids at startup
+CREATE TABLE id_generator (
+    segment_name VARCHAR(64) NOT NULL,
+    next_value BIGINT,
+    PRIMARY KEY (segment_name)
+) ENGINE=InnoDB;
+
+-- Slots are claimed with a conditional UPDATE on booked; duplicates from before the unique key are dropped
+ALTER TABLE doctor_available_slot ADD COLUMN booked BIT NOT NULL DEFAULT FALSE;
+DELETE FROM doctor_available_slot WHERE id NOT IN (
+    SELECT keep.id FROM (SELECT MIN(id) AS id FROM doctor_available_slot GROUP BY doctor_id, available_time) keep);
+ALTER TABLE doctor_available_slot ADD CONSTRAINT uk_slot_doctor_time UNIQUE (doctor_id, available_time);
+CREATE INDEX idx_slot_open_time ON doctor_available_slot (booked, available_time);
+
+-- Per-day availability bitmaps
+CREATE TABLE doctor_day_calendar (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    doctor_id BIGINT,
+    calendar_day DATE NOT NULL,
+    open_low BIGINT NOT NULL,
+    open_high BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_calendar_doctor_day UNIQUE (doctor_id, calendar_day),
+    CONSTRAINT fk_calendar_doctor FOREIGN KEY (doctor_id) REFERENCES doctor (id)
+) ENGINE=InnoDB;
+
+-- Append-only medical history versions
+CREATE TABLE medical_history_entry (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    patient_id BIGINT NOT NULL,
+    version INT NOT NULL,
+    content MEDIUMBLOB NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_history_patient_version UNIQUE (patient_id, version),
+    CONSTRAINT fk_history_patient FOREIGN KEY (patient_id) REFERENCES patient (id)
+) ENGINE=InnoDB;
+
+-- Notes may be stored Deflate-compressed; existing text bytes are kept and still read as UTF-8
+ALTER TABLE appointment MODIFY notes MEDIUMBLOB;
+
+-- Keyset-paged listings by patient, doctor and time
+CREATE INDEX idx_appointment_patient_time ON appointment (patient_id, appointment_time, id);
+CREATE INDEX idx_appointment_doctor_time ON appointment (doctor_id, appointment_time, id);
+CREATE INDEX idx_appointment_patient_status_time ON appointment (patient_id, status, appointment_time, id);
+CREATE INDEX idx_appointment_time ON appointment (appointment_time, id);
+
+CREATE INDEX idx_doctor_specialization ON doctor (specialization);
@@ -0,0 +1,14 @@
+-- Directory entries for accounts registered before the directory existed.
+-- Doctors go first, so an email present in both tables resolves to the doctor
+-- like the old lookup order did; the lowest id wins among duplicate emails.
+INSERT INTO user_account (email, role, entity_id, display_name, password_hash)
+SELECT d.email, 'DOCTOR', d.id, d.name, d.password FROM doctor d
+WHERE d.email IS NOT NULL
+AND d.id = (SELECT MIN(d2.id) FROM doctor d2 WHERE d2.email = d.email)
+AND NOT EXISTS (SELECT 1 FROM user_account a WHERE a.email = d.email);
+
+INSERT INTO user_account (email, role, entity_id, display_name, password_hash)
+SELECT p.email, 'PATIENT', p.id, p.name, p.password FROM patient p
+WHERE p.email IS NOT NULL
+AND p.id = (SELECT MIN(p2.id) FROM patient p2 WHERE p2.email = p.email)
+AND NOT EXISTS (SELECT 1 FROM user_account a WHERE a.email = p.email);
@@ -0,0 +1,3 @@
+-- Ids are AUTO_INCREMENT again. InnoDB moved each counter past the explicit ids
+-- written while the pooled table generator was in use, so none are reused.
+DROP TABLE id_generator;
@@ -0,0 +1,6 @@
+-- Slots taken by appointments booked before slots were claimed. Runs before the
+-- application starts serving, so no booking can see such a slot as open.
+UPDATE doctor_available_slot s SET booked = TRUE
+WHERE s.booked = FALSE
+AND EXISTS (SELECT 1 FROM appointment a WHERE a.doctor_id = s.doctor_id
+    AND a.appointment_time = s.available_time AND a.status = 'SCHEDULED');
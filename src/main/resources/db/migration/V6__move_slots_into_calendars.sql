@@ -0,0 +1,24 @@
+-- Day calendars become the only record of availability: each slot row turns into
+-- an open or booked bit of its doctor's day (slot index = minutes since midnight / 15,
+-- low word for slots 0-47, high word for 48-95). Slot times are unique per doctor,
+-- so summing the distinct powers of two gives the bitmap. Slots off the 15-minute
+-- grid can't be represented and are dropped.
+ALTER TABLE doctor_day_calendar ADD COLUMN booked_low BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE doctor_day_calendar ADD COLUMN booked_high BIGINT NOT NULL DEFAULT 0;
+
+-- Calendars so far mirrored the slot rows, so they are rebuilt from them as a whole
+DELETE FROM doctor_day_calendar;
+
+INSERT INTO doctor_day_calendar (doctor_id, calendar_day, open_low, open_high, booked_low, booked_high)
+SELECT s.doctor_id, s.slot_day,
+    SUM(CASE WHEN s.booked = FALSE AND s.slot_index < 48 THEN POWER(2, s.slot_index) ELSE 0 END),
+    SUM(CASE WHEN s.booked = FALSE AND s.slot_index >= 48 THEN POWER(2, s.slot_index - 48) ELSE 0 END),
+    SUM(CASE WHEN s.booked = TRUE AND s.slot_index < 48 THEN POWER(2, s.slot_index) ELSE 0 END),
+    SUM(CASE WHEN s.booked = TRUE AND s.slot_index >= 48 THEN POWER(2, s.slot_index - 48) ELSE 0 END)
+FROM (SELECT doctor_id, booked, CAST(available_time AS DATE) AS slot_day,
+        FLOOR((HOUR(available_time) * 60 + MINUTE(available_time)) / 15) AS slot_index
+    FROM doctor_available_slot
+    WHERE doctor_id IS NOT NULL AND MOD(MINUTE(available_time), 15) = 0 AND SECOND(available_time) = 0) s
+GROUP BY s.doctor_id, s.slot_day;
+
+DROP TABLE doctor_available_slot;
@@ -0,0 +1,10 @@
+-- Entries so far each held the whole text; new ones may hold only what was appended
+ALTER TABLE medical_history_entry ADD COLUMN kind ENUM('APPEND', 'REPLACE') NOT NULL DEFAULT 'REPLACE';
+
+-- History still in the old patient column becomes each patient's first version
+INSERT INTO medical_history_entry (patient_id, version, kind, content, created_at)
+SELECT p.id, 1, 'REPLACE', p.medical_history, CURRENT_TIMESTAMP FROM patient p
+WHERE p.medical_history IS NOT NULL AND TRIM(p.medical_history) <> ''
+AND NOT EXISTS (SELECT 1 FROM medical_history_entry e WHERE e.patient_id = p.id);
+
+ALTER TABLE patient DROP COLUMN medical_history;
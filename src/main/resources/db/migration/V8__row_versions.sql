@@ -0,0 +1,5 @@
+-- Row versions the ETags of polled reads are derived from, so every instance
+-- hands out the same tag for the same data
+ALTER TABLE doctor ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE doctor_day_calendar ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE appointment ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,124 @@
+package com.example.healthcaresystem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Upgrades a database holding rows written by the pre-migration schema (V1)
+ * and checks the data migrations that run on the way to the current version.
+ */
+class SchemaMigrationTests {
+
+	private DriverManagerDataSource dataSource;
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void setUp() {
+		dataSource = new DriverManagerDataSource("jdbc:h2:mem:migration-" + System.nanoTime()
+				+ ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE;DB_CLOSE_DELAY=-1", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		migrate("1");
+	}
+
+	@Test
+	void accountsPredatingTheDirectoryAreBackfilled() {
+		jdbcTemplate.update("INSERT INTO doctor (id, name, email, password) VALUES (1, 'Dr One', 'one@example.com', 'h1')");
+		jdbcTemplate.update("INSERT INTO doctor (id, name, email, password) VALUES (2, 'Dr Dup', 'one@example.com', 'h2')");
+		jdbcTemplate.update("INSERT INTO patient (id, name, email, password) VALUES (1, 'Pat', 'pat@example.com', 'h3')");
+		jdbcTemplate.update("INSERT INTO patient (id, name, email, password) VALUES (2, 'Both', 'one@example.com', 'h4')");
+
+		migrate("latest");
+
+		List<Map<String, Object>> accounts = jdbcTemplate.queryForList(
+				"SELECT email, role, entity_id FROM user_account ORDER BY email");
+		assertEquals(2, accounts.size());
+		// The doctor wins over the patient, and the lowest id among duplicates
+		assertEquals(List.of("one@example.com", "DOCTOR", 1L), List.copyOf(accounts.get(0).values()));
+		assertEquals(List.of("pat@example.com", "PATIENT", 1L), List.copyOf(accounts.get(1).values()));
+	}
+
+	@Test
+	void duplicateSlotsAreDroppedBeforeTheUniqueKey() {
+		jdbcTemplate.update("INSERT INTO doctor (id, name, email) VALUES (1, 'Dr One', 'one@example.com')");
+		jdbcTemplate.update("INSERT INTO doctor_available_slot (id, doctor_id, available_time) VALUES (1, 1, '2030-01-07 09:00:00')");
+		jdbcTemplate.update("INSERT INTO doctor_available_slot (id, doctor_id, available_time) VALUES (2, 1, '2030-01-07 09:00:00')");
+		jdbcTemplate.update("INSERT INTO doctor_available_slot (id, doctor_id, available_time) VALUES (3, 1, '2030-01-07 09:15:00')");
+
+		migrate("5");
+
+		assertEquals(List.of(1L, 3L), jdbcTemplate.queryForList("SELECT id FROM doctor_available_slot ORDER BY id", Long.class));
+	}
+
+	@Test
+	void slotsOfScheduledAppointmentsAreMarkedBooked() {
+		jdbcTemplate.update("INSERT INTO doctor (id, name, email) VALUES (1, 'Dr One', 'one@example.com')");
+		jdbcTemplate.update("INSERT INTO patient (id, name, email) VALUES (1, 'Pat', 'pat@example.com')");
+		jdbcTemplate.update("INSERT INTO doctor_available_slot (id, doctor_id, available_time) VALUES (1, 1, '2030-01-07 09:00:00')");
+		jdbcTemplate.update("INSERT INTO doctor_available_slot (id, doctor_id, available_time) VALUES (2, 1, '2030-01-07 09:15:00')");
+		jdbcTemplate.update("INSERT INTO doctor_available_slot (id, doctor_id, available_time) VALUES (3, 1, '2030-01-07 09:30:00')");
+		jdbcTemplate.update("INSERT INTO appointment (doctor_id, patient_id, appointment_time, status) "
+				+ "VALUES (1, 1, '2030-01-07 09:00:00', 'SCHEDULED')");
+		jdbcTemplate.update("INSERT INTO appointment (doctor_id, patient_id, appointment_time, status) "
+				+ "VALUES (1, 1, '2030-01-07 09:15:00', 'CANCELLED')");
+
+		migrate("5");
+
+		assertEquals(List.of(1L), jdbcTemplate.queryForList(
+				"SELECT id FROM doctor_available_slot WHERE booked = TRUE ORDER BY id", Long.class));
+	}
+
+	@Test
+	void slotsMoveIntoDayCalendars() {
+		jdbcTemplate.update("INSERT INTO doctor (id, name, email) VALUES (1, 'Dr One', 'one@example.com')");
+		jdbcTemplate.update("INSERT INTO patient (id, name, email) VALUES (1, 'Pat', 'pat@example.com')");
+		jdbcTemplate.update("INSERT INTO doctor_available_slot (doctor_id, available_time) VALUES (1, '2030-01-07 00:00:00')");
+		jdbcTemplate.update("INSERT INTO doctor_available_slot (doctor_id, available_time) VALUES (1, '2030-01-07 09:15:00')");
+		jdbcTemplate.update("INSERT INTO doctor_available_slot (doctor_id, available_time) VALUES (1, '2030-01-07 09:20:00')");
+		jdbcTemplate.update("INSERT INTO doctor_available_slot (doctor_id, available_time) VALUES (1, '2030-01-07 14:00:00')");
+		jdbcTemplate.update("INSERT INTO doctor_available_slot (doctor_id, available_time) VALUES (1, '2030-01-07 23:45:00')");
+		jdbcTemplate.update("INSERT INTO doctor_available_slot (doctor_id, available_time) VALUES (1, '2030-01-08 10:00:00')");
+		jdbcTemplate.update("INSERT INTO appointment (doctor_id, patient_id, appointment_time, status) "
+				+ "VALUES (1, 1, '2030-01-07 14:00:00', 'SCHEDULED')");
+
+		migrate("latest");
+
+		List<Map<String, Object>> calendars = jdbcTemplate.queryForList("SELECT calendar_day, open_low, open_high, "
+				+ "booked_low, booked_high FROM doctor_day_calendar WHERE doctor_id = 1 ORDER BY calendar_day");
+		assertEquals(2, calendars.size());
+		// 00:00 and 09:15 open, 09:20 is off the grid, 14:00 booked, 23:45 open
+		assertEquals(List.of(java.sql.Date.valueOf("2030-01-07"), 1L | (1L << 37), 1L << 47, 0L, 1L << 8),
+				List.copyOf(calendars.get(0).values()));
+		assertEquals(List.of(java.sql.Date.valueOf("2030-01-08"), 1L << 40, 0L, 0L, 0L),
+				List.copyOf(calendars.get(1).values()));
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.tables "
+				+ "WHERE table_name = 'doctor_available_slot'", Integer.class));
+	}
+
+	@Test
+	void legacyMedicalHistoryBecomesTheFirstVersion() {
+		jdbcTemplate.update("INSERT INTO patient (id, name, email, medical_history) VALUES (1, 'Pat', 'pat@example.com', 'Asthma')");
+		jdbcTemplate.update("INSERT INTO patient (id, name, email, medical_history) VALUES (2, 'Blank', 'blank@example.com', '  ')");
+
+		migrate("latest");
+
+		List<Map<String, Object>> entries = jdbcTemplate.queryForList(
+				"SELECT patient_id, version, kind, content FROM medical_history_entry");
+		assertEquals(1, entries.size());
+		assertEquals(List.of(1L, 1, "REPLACE"), List.copyOf(entries.get(0).values()).subList(0, 3));
+		assertEquals("Asthma", new String((byte[]) entries.get(0).get("content"), java.nio.charset.StandardCharsets.UTF_8));
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.columns "
+				+ "WHERE table_name = 'patient' AND column_name = 'medical_history'", Integer.class));
+	}
+
+	private void migrate(String target) {
+		Flyway.configure().dataSource(dataSource).target(target).load().migrate();
+	}
+}
@@ -0,0 +1,66 @@
+package com.example.healthcaresystem.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CompressedTextConverterTests {
+
+	private final CompressedTextConverter converter = new CompressedTextConverter(64, new SimpleMeterRegistry());
+
+	@Test
+	void largeTextIsCompressedAndReadBack() {
+		String notes = "Patient reports mild chest pain after exercise. BP 120/80. ".repeat(40);
+
+		byte[] stored = converter.convertToDatabaseColumn(notes);
+
+		assertTrue(CompressedTextConverter.isCompressed(stored));
+		assertTrue(stored.length < notes.length() / 4);
+		assertEquals(notes, converter.convertToEntityAttribute(stored));
+	}
+
+	@Test
+	void smallTextIsStoredAsPlainUtf8() {
+		String notes = "Aspirin 100mg daily – après repas";
+
+		byte[] stored = converter.convertToDatabaseColumn(notes);
+
+		assertArrayEquals(notes.getBytes(StandardCharsets.UTF_8), stored);
+		assertEquals(notes, converter.convertToEntityAttribute(stored));
+	}
+
+	@Test
+	void legacyPlainRowsStillRead() {
+		String legacy = "Penicillin allergy. ".repeat(20);
+
+		byte[] stored = legacy.getBytes(StandardCharsets.UTF_8);
+
+		assertFalse(CompressedTextConverter.isCompressed(stored));
+		assertEquals(legacy, converter.convertToEntityAttribute(stored));
+	}
+
+	@Test
+	void textThatWouldGrowIsKeptPlain() {
+		CompressedTextConverter eager = new CompressedTextConverter(1, new SimpleMeterRegistry());
+
+		byte[] stored = eager.convertToDatabaseColumn("ok");
+
+		assertArrayEquals("ok".getBytes(StandardCharsets.UTF_8), stored);
+		assertEquals("ok", eager.convertToEntityAttribute(stored));
+	}
+
+	@Test
+	void blankTextIsStoredAsNull() {
+		assertNull(converter.convertToDatabaseColumn("   "));
+		assertNull(converter.convertToDatabaseColumn(null));
+		assertNull(converter.convertToEntityAttribute(null));
+	}
+}
@@ -0,0 +1,68 @@
+package com.example.healthcaresystem.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class DoctorDayCalendarTests {
+
+	private static final LocalDate DAY = LocalDate.of(2030, 1, 15);
+
+	@Test
+	void slotsMapToTheRightWord() {
+		int morning = DoctorDayCalendar.slotIndex(LocalTime.of(9, 15));
+		int lastOfDay = DoctorDayCalendar.slotIndex(LocalTime.of(23, 45));
+
+		assertEquals(37, morning);
+		assertEquals(1L << 37, DoctorDayCalendar.lowBit(morning));
+		assertEquals(0L, DoctorDayCalendar.highBit(morning));
+
+		assertEquals(95, lastOfDay);
+		assertEquals(0L, DoctorDayCalendar.lowBit(lastOfDay));
+		assertEquals(1L << 47, DoctorDayCalendar.highBit(lastOfDay));
+		assertTrue(DoctorDayCalendar.highBit(lastOfDay) <= DoctorDayCalendar.WORD_MASK);
+	}
+
+	@Test
+	void openTimesListsSetBitsInOrder() {
+		int nine = DoctorDayCalendar.slotIndex(LocalTime.of(9, 0));
+		int noon = DoctorDayCalendar.slotIndex(LocalTime.of(12, 0));
+		int late = DoctorDayCalendar.slotIndex(LocalTime.of(17, 30));
+		DoctorDayCalendar calendar = new DoctorDayCalendar(null, DAY,
+				DoctorDayCalendar.lowBit(nine),
+				DoctorDayCalendar.highBit(noon) | DoctorDayCalendar.highBit(late));
+
+		assertEquals(List.of(DAY.atTime(9, 0), DAY.atTime(12, 0), DAY.atTime(17, 30)), calendar.openTimes());
+		assertTrue(calendar.isOpen(LocalTime.of(12, 0)));
+		assertFalse(calendar.isOpen(LocalTime.of(12, 15)));
+	}
+
+	@Test
+	void claimMovesAnOpenSlotToBookedOnce() {
+		int noon = DoctorDayCalendar.slotIndex(LocalTime.of(12, 0));
+		DoctorDayCalendar calendar = new DoctorDayCalendar(null, DAY, 0L, DoctorDayCalendar.highBit(noon));
+
+		assertTrue(calendar.claim(LocalTime.of(12, 0)));
+		assertFalse(calendar.claim(LocalTime.of(12, 0)));
+		assertFalse(calendar.claim(LocalTime.of(12, 15)));
+
+		assertFalse(calendar.isOpen(LocalTime.of(12, 0)));
+		assertTrue(calendar.isBooked(LocalTime.of(12, 0)));
+		assertEquals(List.of(), calendar.openTimes());
+		assertEquals(List.of(DAY.atTime(12, 0)), calendar.slotTimes());
+	}
+
+	@Test
+	void onlyQuarterHourBoundariesAreOnGrid() {
+		assertTrue(DoctorDayCalendar.isOnGrid(LocalDateTime.of(DAY, LocalTime.of(10, 45))));
+		assertFalse(DoctorDayCalendar.isOnGrid(LocalDateTime.of(DAY, LocalTime.of(10, 50))));
+		assertFalse(DoctorDayCalendar.isOnGrid(LocalDateTime.of(DAY, LocalTime.of(10, 45, 30))));
+	}
+}
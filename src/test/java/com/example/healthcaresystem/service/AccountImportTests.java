@@ -0,0 +1,81 @@
+package com.example.healthcaresystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.healthcaresystem.model.UserAccount;
+import com.example.healthcaresystem.repo.UserAccountRepository;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class AccountImportTests {
+
+	@Autowired
+	private UnifiedUserDetailsService userService;
+
+	@Autowired
+	private UserAccountRepository accountRepository;
+
+	@Test
+	void invalidRowsAreRejectedByLineLikeSingleRegistration() {
+		String prefix = "import." + System.nanoTime();
+		List<UnifiedUserDetailsService.ImportRow> rows = List.of(
+				row(2, prefix + ".ok@example.com", "pw"),
+				row(3, "not-an-email", "pw"),
+				row(4, prefix + "." + "x".repeat(250) + "@example.com", "pw"),
+				row(5, prefix + ".long.password@example.com", "p".repeat(73)),
+				row(6, "  ", "pw"),
+				row(7, prefix + ".also.ok@example.com", "pw"));
+		List<String> failures = new ArrayList<>();
+
+		UnifiedUserDetailsService.ImportResult result = userService.importAccounts(UserAccount.Role.PATIENT, rows.iterator(),
+				new UnifiedUserDetailsService.ImportListener() {
+					@Override
+					public void rowFailed(UnifiedUserDetailsService.ImportRow row, String error) {
+						failures.add(row.line() + ": " + error);
+					}
+
+					@Override
+					public void chunkCommitted(long processed, long imported) {
+					}
+				});
+
+		assertEquals(List.of(
+				"3: Invalid email",
+				"4: email must be at most 255 characters",
+				"5: password must be at most 72 bytes",
+				"6: Missing email"), failures);
+		assertEquals(new UnifiedUserDetailsService.ImportResult(6, 2, 4), result);
+		assertEquals(2, accountRepository.findExistingEmails(List.of(prefix + ".ok@example.com", prefix + ".also.ok@example.com")).size());
+	}
+
+	@Test
+	void singleRegistrationAppliesTheSameChecks() {
+		Map<String, String> fields = row(1, "pat@example.com", "pw").fields();
+		assertNull(UnifiedUserDetailsService.validateRegistration(UserAccount.Role.PATIENT, fields));
+
+		fields.put("email", "pat@example");
+		assertEquals("Invalid email", UnifiedUserDetailsService.validateRegistration(UserAccount.Role.PATIENT, fields));
+		assertEquals("Missing specialization", UnifiedUserDetailsService.validateRegistration(UserAccount.Role.DOCTOR, fields));
+	}
+
+	private static UnifiedUserDetailsService.ImportRow row(int line, String email, String password) {
+		Map<String, String> fields = new HashMap<>();
+		fields.put("name", "Pat Import");
+		fields.put("email", email);
+		fields.put("password", password);
+		fields.put("phone", "1");
+		fields.put("dob", "1980-05-01");
+		return new UnifiedUserDetailsService.ImportRow(line, fields, null);
+	}
+}
@@ -0,0 +1,104 @@
+package com.example.healthcaresystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.example.healthcaresystem.model.CompressedTextConverter;
+import com.example.healthcaresystem.model.Doctor;
+import com.example.healthcaresystem.model.Patient;
+
+/**
+ * Exports more data than the heap can hold through a real HTTP connection.
+ * The pom runs this class alone in a fork with -Xmx80m (about the least the
+ * application starts with), so it only passes if rows stream from the result
+ * set to the client without being collected anywhere on the way.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("h2")
+class AppointmentExportStreamingTests {
+
+	private static final int ROWS = 60_000;
+
+	private static final LocalDate DAY = LocalDate.of(2031, 3, 3);
+
+	// Repetitive, so the database holds small deflated blobs while every exported row carries the full text
+	private static final String NOTE = "Rest, fluids and a follow-up visit in two weeks. ".repeat(40);
+
+	// A file database with a small page cache and results spilled to disk past 1000 rows, so the
+	// rows live outside the heap like on a database server, and a fresh file per run
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", () -> "jdbc:h2:file:./target/export-streaming-" + System.nanoTime()
+				+ ";CACHE_SIZE=4096;MAX_MEMORY_ROWS=1000;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE");
+	}
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private UnifiedUserDetailsService userService;
+
+	@Autowired
+	private JwtService jwtService;
+
+	@Autowired
+	private CompressedTextConverter converter;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void exportLargerThanTheHeapStreamsToTheClient() throws Exception {
+		Doctor doctor = new Doctor("Dr Stream", "Cardiology", "stream.doctor@example.com", "1", "pw");
+		Patient patient = new Patient("Pat Stream", "stream.patient@example.com", "1", DAY.minusYears(40), "pw");
+		userService.addDoctor(doctor);
+		userService.addPatient(patient);
+		jdbcTemplate.update("INSERT INTO appointment (doctor_id, patient_id, appointment_time, status, notes) "
+				+ "SELECT CAST(? AS BIGINT), CAST(? AS BIGINT), DATEADD('SECOND', \"X\", CAST(? AS TIMESTAMP)), 'COMPLETED', "
+				+ "CAST(? AS VARBINARY) FROM SYSTEM_RANGE(1, ?)",
+				doctor.getId(), patient.getId(), Timestamp.valueOf(DAY.atStartOfDay()),
+				converter.convertToDatabaseColumn(NOTE), ROWS);
+
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port
+						+ "/api/appointments/export?from=" + DAY + "&to=" + DAY))
+				.header("Authorization", "Bearer " + jwtService.generateToken(doctor.getEmail()))
+				.build();
+		HttpResponse<InputStream> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofInputStream());
+		assertEquals(200, response.statusCode());
+
+		long lines = 0;
+		long chars = 0;
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				assertTrue(line.contains(NOTE));
+				lines++;
+				chars += line.length();
+			}
+		}
+
+		assertEquals(ROWS, lines);
+		// Held at once, the rows would not fit the heap this runs in
+		assertTrue(chars > Runtime.getRuntime().maxMemory(), chars + " chars exported with a heap of "
+				+ Runtime.getRuntime().maxMemory());
+	}
+}
@@ -0,0 +1,122 @@
+package com.example.healthcaresystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.example.healthcaresystem.model.AccountPrincipal;
+import com.example.healthcaresystem.model.Appointment;
+import com.example.healthcaresystem.model.Doctor;
+import com.example.healthcaresystem.model.Patient;
+import com.example.healthcaresystem.model.UserAccount;
+import com.example.healthcaresystem.repo.AppointmentRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Own database, so the export range holds only this class's rows
+@SpringBootTest(properties = {
+		"export.fetch-size=50",
+		"spring.datasource.url=jdbc:h2:mem:appointment-export;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE"
+})
+@ActiveProfiles("h2")
+@AutoConfigureMockMvc
+class AppointmentExportTests {
+
+	// More than the fetch size, so the export reads several batches
+	private static final int ROWS = 120;
+
+	private static final LocalDate DAY = LocalDate.of(2031, 3, 3);
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private UnifiedUserDetailsService userService;
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private Doctor doctor;
+	private Doctor otherDoctor;
+
+	@BeforeEach
+	void setUp() {
+		doctor = new Doctor("Dr Export", "Cardiology", "export.doctor." + System.nanoTime() + "@example.com", "1", "pw");
+		otherDoctor = new Doctor("Dr Other", "Neurology", "export.other." + System.nanoTime() + "@example.com", "1", "pw");
+		Patient patient = new Patient("Pat Export", "export.patient." + System.nanoTime() + "@example.com", "1", DAY.minusYears(40), "pw");
+		userService.addDoctor(doctor);
+		userService.addDoctor(otherDoctor);
+		userService.addPatient(patient);
+
+		List<Appointment> appointments = new ArrayList<>();
+		for (int i = 0; i < ROWS; i++) {
+			Appointment appointment = new Appointment(doctor, patient, DAY.atTime(8, 0).plusMinutes(i), Appointment.Status.COMPLETED);
+			appointment.setNotes("Rest, fluids \"daily\" #" + i);
+			appointments.add(appointment);
+		}
+		appointments.add(new Appointment(otherDoctor, patient, DAY.atTime(9, 0), Appointment.Status.SCHEDULED));
+		appointmentRepository.saveAll(appointments);
+	}
+
+	@Test
+	void csvExportStreamsEveryRowOfTheCallersDoctor() throws Exception {
+		String[] lines = export("/api/appointments/export?from=" + DAY + "&to=" + DAY + "&format=csv", doctor).split("\n");
+
+		assertEquals(ROWS + 1, lines.length);
+		assertEquals("id,appointmentTime,status,doctorId,doctorName,doctorSpecialization,patientId,patientName,notes", lines[0]);
+		assertTrue(lines[1].endsWith(",\"Rest, fluids \"\"daily\"\" #0\""), lines[1]);
+		assertTrue(lines[ROWS].endsWith(",\"Rest, fluids \"\"daily\"\" #" + (ROWS - 1) + "\""), lines[ROWS]);
+	}
+
+	@Test
+	void ndjsonExportDefaultsToTheCallersDoctor() throws Exception {
+		String[] lines = export("/api/appointments/export?from=" + DAY + "&to=" + DAY, doctor).split("\n");
+
+		assertEquals(ROWS, lines.length);
+		LocalDateTime previous = null;
+		for (String line : lines) {
+			JsonNode row = objectMapper.readTree(line);
+			assertEquals(doctor.getId().longValue(), row.get("doctor").get("id").asLong());
+			LocalDateTime time = LocalDateTime.parse(row.get("appointmentTime").asText());
+			assertTrue(previous == null || time.isAfter(previous));
+			previous = time;
+		}
+	}
+
+	@Test
+	void otherDoctorsAppointmentsCannotBeExported() throws Exception {
+		MvcResult result = mvc.perform(get("/api/appointments/export?from=" + DAY + "&to=" + DAY + "&doctorId=" + doctor.getId())
+				.with(user(principal(otherDoctor)))).andReturn();
+		assertEquals(403, result.getResponse().getStatus());
+	}
+
+	private String export(String url, Doctor caller) throws Exception {
+		MvcResult started = mvc.perform(get(url).with(user(principal(caller)))).andReturn();
+		MvcResult result = mvc.perform(asyncDispatch(started)).andReturn();
+		assertEquals(200, result.getResponse().getStatus());
+		return result.getResponse().getContentAsString();
+	}
+
+	private static AccountPrincipal principal(Doctor doctor) {
+		return new AccountPrincipal(doctor.getEmail(), "", UserAccount.Role.DOCTOR, doctor.getId(), doctor.getName());
+	}
+}
@@ -0,0 +1,171 @@
+package com.example.healthcaresystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import com.example.healthcaresystem.model.AccountPrincipal;
+import com.example.healthcaresystem.model.Appointment;
+import com.example.healthcaresystem.model.AppointmentSummary;
+import com.example.healthcaresystem.model.Doctor;
+import com.example.healthcaresystem.model.Patient;
+import com.example.healthcaresystem.model.UserAccount;
+import com.example.healthcaresystem.repo.AppointmentRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+@AutoConfigureMockMvc
+class AppointmentQueryCountTests {
+
+	// A short and a long history; reads must take as many statements for one as for the other
+	private static final int SHORT_HISTORY = 10;
+	private static final int LONG_HISTORY = 1000;
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private UnifiedUserDetailsService userService;
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	@Autowired
+	private ScheduleService scheduleService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+	private Doctor doctor;
+	private Patient patient;
+	private Doctor shortDoctor;
+	private Patient shortPatient;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		doctor = doctor("long");
+		patient = patient("long");
+		shortDoctor = doctor("short");
+		shortPatient = patient("short");
+		addHistory(doctor, patient, LONG_HISTORY);
+		addHistory(shortDoctor, shortPatient, SHORT_HISTORY);
+	}
+
+	@Test
+	void endpointStatementCountsDoNotGrowWithTheHistory() throws Exception {
+		Map<String, RequestPostProcessor> patientReads = Map.of(
+				"/api/appointments/patient/%d", as(UserAccount.Role.PATIENT),
+				"/api/appointments/patient/%d?size=20", as(UserAccount.Role.PATIENT),
+				"/api/medical-records/patient/%d", as(UserAccount.Role.PATIENT),
+				"/api/medical-records/patient/%d/appointments", as(UserAccount.Role.PATIENT));
+		for (Map.Entry<String, RequestPostProcessor> read : patientReads.entrySet()) {
+			long shortStatements = statementsFor(read.getKey(), shortPatient.getId(), read.getValue());
+			long longStatements = statementsFor(read.getKey(), patient.getId(), read.getValue());
+			assertTrue(longStatements > 0, read.getKey());
+			assertEquals(shortStatements, longStatements, read.getKey());
+		}
+
+		long shortStatements = statementsFor("/api/appointments/doctor/%d?size=20", shortDoctor.getId(), as(UserAccount.Role.DOCTOR));
+		long longStatements = statementsFor("/api/appointments/doctor/%d?size=20", doctor.getId(), as(UserAccount.Role.DOCTOR));
+		assertEquals(shortStatements, longStatements);
+	}
+
+	@Test
+	void summaryPagesTakeOneStatementWhateverTheirSize() {
+		for (int size : new int[] {5, 20}) {
+			Slice<AppointmentSummary> patientPage = counted(1, () -> appointmentRepository.findPatientHistory(patient.getId(), PageRequest.of(0, size)));
+			assertEquals(size, patientPage.getNumberOfElements());
+
+			Slice<AppointmentSummary> doctorPage = counted(1, () -> appointmentRepository.findDoctorHistory(doctor.getId(), PageRequest.of(0, size)));
+			assertEquals(size, doctorPage.getNumberOfElements());
+
+			AppointmentSummary last = doctorPage.getContent().get(size - 1);
+			counted(1, () -> appointmentRepository.findDoctorHistoryBefore(doctor.getId(), last.appointmentTime(), last.id(), PageRequest.of(0, size)));
+		}
+	}
+
+	@Test
+	void historyReadsLoadTheOwnerAndOnePage() {
+		// Owner lookup plus the page; the doctor may come from the second-level cache instead
+		ScheduleService.AppointmentListing<Patient> patientListing =
+				counted(2, () -> scheduleService.patientHistory(patient.getId(), null, null, PageRequest.of(0, 20), false));
+		assertEquals("Dr Count", patientListing.appointments().getContent().get(0).doctor().name());
+
+		long statements = statementsFor(() -> scheduleService.doctorHistory(doctor.getId(), null, null, PageRequest.of(0, 20), false));
+		assertTrue(statements <= 2, statements + " statements");
+	}
+
+	private <T> T counted(long expectedStatements, Supplier<T> read) {
+		statistics.clear();
+		T result = read.get();
+		assertEquals(expectedStatements, statistics.getPrepareStatementCount());
+		return result;
+	}
+
+	private long statementsFor(Supplier<?> read) {
+		statistics.clear();
+		read.get();
+		return statistics.getPrepareStatementCount();
+	}
+
+	// Statements for one GET, warmed up first so both sizes see the same cache state
+	private long statementsFor(String url, Long id, RequestPostProcessor caller) throws Exception {
+		String path = String.format(url, id);
+		mvc.perform(get(path).with(caller));
+		statistics.clear();
+		MvcResult result = mvc.perform(get(path).with(caller)).andReturn();
+		assertEquals(200, result.getResponse().getStatus(), path + ": " + result.getResponse().getContentAsString());
+		return statistics.getPrepareStatementCount();
+	}
+
+	private RequestPostProcessor as(UserAccount.Role role) {
+		return user(new AccountPrincipal("count@example.com", "", role, null, "Count"));
+	}
+
+	private Doctor doctor(String kind) {
+		Doctor created = new Doctor("Dr Count", "Cardiology", "count.doctor." + kind + "." + System.nanoTime() + "@example.com", "1", "pw");
+		userService.addDoctor(created);
+		return created;
+	}
+
+	private Patient patient(String kind) {
+		Patient created = new Patient("Pat Count", "count.patient." + kind + "." + System.nanoTime() + "@example.com", "1",
+				LocalDate.of(1980, 1, 1), "pw");
+		userService.addPatient(created);
+		return created;
+	}
+
+	private void addHistory(Doctor owner, Patient of, int count) {
+		List<Appointment> appointments = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			appointments.add(new Appointment(owner, of, LocalDate.of(2032, 5, 1).atTime(8, 0).plusMinutes(15L * i),
+					Appointment.Status.SCHEDULED));
+		}
+		appointmentRepository.saveAll(appointments);
+	}
+}
@@ -0,0 +1,139 @@
+package com.example.healthcaresystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.healthcaresystem.model.Doctor;
+import com.example.healthcaresystem.model.Patient;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class BookingConcurrencyTests {
+
+	private static final int THREADS = 64;
+	private static final int SLOTS = 200;
+	private static final int REQUESTS_PER_SLOT = 20;
+
+	@Autowired
+	private UnifiedUserDetailsService userService;
+
+	@Autowired
+	private AvailabilityService availabilityService;
+
+	@Autowired
+	private BookingService bookingService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void concurrentBookingsOfOneSlotCreateExactlyOneAppointment() throws Exception {
+		Doctor doctor = addDoctor("busy.doctor@example.com");
+		List<Patient> patients = addPatients("busy.patient", THREADS);
+		LocalDateTime time = LocalDateTime.now().plusDays(3).truncatedTo(ChronoUnit.HOURS);
+		availabilityService.addSlot(doctor.getId(), time);
+
+		List<BookingService.BookingRequest> requests = new ArrayList<>();
+		for (Patient patient : patients) {
+			requests.add(new BookingService.BookingRequest(patient.getId(), doctor.getId(), time));
+		}
+		assertEquals(1, bookConcurrently(requests));
+
+		assertEquals(1, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM appointment WHERE doctor_id = ? AND appointment_time = ?",
+				Integer.class, doctor.getId(), time));
+		assertEquals(List.of(), availabilityService.availability(doctor.getId(), LocalDateTime.now()).openTimes());
+	}
+
+	@Test
+	void contendedSlotsAreEachBookedOnceUnderLoad() throws Exception {
+		Doctor doctor = addDoctor("crowded.doctor@example.com");
+		List<Patient> patients = addPatients("crowded.patient", THREADS);
+		LocalDateTime first = LocalDateTime.now().plusDays(5).truncatedTo(ChronoUnit.DAYS);
+		List<LocalDateTime> times = new ArrayList<>();
+		for (int i = 0; i < SLOTS; i++) {
+			times.add(first.plusMinutes(15L * i));
+			availabilityService.addSlot(doctor.getId(), times.get(i));
+		}
+
+		// Requests for the same slot are spread apart so each one races the others
+		List<BookingService.BookingRequest> requests = new ArrayList<>();
+		for (int i = 0; i < SLOTS * REQUESTS_PER_SLOT; i++) {
+			requests.add(new BookingService.BookingRequest(patients.get(i % patients.size()).getId(),
+					doctor.getId(), times.get(i % SLOTS)));
+		}
+		long started = System.nanoTime();
+		int booked = bookConcurrently(requests);
+		long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+		System.out.printf("Booked %d of %d requests on %d threads in %d ms (%d requests/s)%n",
+				booked, requests.size(), THREADS, elapsedMillis, requests.size() * 1000L / elapsedMillis);
+
+		assertEquals(SLOTS, booked);
+		assertEquals(SLOTS, jdbcTemplate.queryForObject(
+				"SELECT COUNT(DISTINCT appointment_time) FROM appointment WHERE doctor_id = ?",
+				Integer.class, doctor.getId()));
+		assertEquals(SLOTS, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM appointment WHERE doctor_id = ?", Integer.class, doctor.getId()));
+	}
+
+	// Submits every request on its own thread at once; returns how many were booked
+	private int bookConcurrently(List<BookingService.BookingRequest> requests) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<BookingService.BookingResult>> futures = new ArrayList<>();
+		try {
+			for (BookingService.BookingRequest request : requests) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					return bookingService.bookBatch(List.of(request)).get(0);
+				}));
+			}
+			start.countDown();
+
+			int booked = 0;
+			for (Future<BookingService.BookingResult> future : futures) {
+				BookingService.BookingResult result = future.get(60, TimeUnit.SECONDS);
+				if (result.isBooked()) {
+					booked++;
+				} else {
+					assertEquals("Doctor is not available at this time", result.error());
+				}
+			}
+			return booked;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private Doctor addDoctor(String email) {
+		Doctor doctor = new Doctor("Dr Busy", "Cardiology", email, "1", "pw");
+		userService.addDoctor(doctor);
+		return doctor;
+	}
+
+	private List<Patient> addPatients(String emailPrefix, int count) {
+		List<Patient> patients = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Patient patient = new Patient("Pat " + i, emailPrefix + i + "@example.com", "1",
+					LocalDateTime.now().toLocalDate().minusYears(30), "pw");
+			userService.addPatient(patient);
+			patients.add(patient);
+		}
+		return patients;
+	}
+}
@@ -0,0 +1,150 @@
+package com.example.healthcaresystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.healthcaresystem.model.Appointment;
+import com.example.healthcaresystem.repo.AppointmentRepository;
+import com.example.healthcaresystem.service.BookingService.BookingRequest;
+import com.example.healthcaresystem.service.BookingService.BookingResult;
+
+/**
+ * Drives a single-lane engine against a stand-in booking service whose first
+ * call blocks until released, so requests can be queued up behind it.
+ */
+class BookingEngineTests {
+
+	private static final Long DOCTOR_ID = 1L;
+	private static final Long FAILING_PATIENT_ID = 13L;
+
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final List<List<BookingRequest>> calls = Collections.synchronizedList(new ArrayList<>());
+	private BookingEngine engine;
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		engine.stop();
+	}
+
+	@Test
+	void aFailedBatchIsRetriedOneRequestAtATime() throws Exception {
+		start(10_000);
+		CompletableFuture<BookingResult> first = engine.submit(request(1L, 9));
+		awaitCalls(1);
+		CompletableFuture<BookingResult> before = engine.submit(request(2L, 10));
+		CompletableFuture<BookingResult> failing = engine.submit(request(FAILING_PATIENT_ID, 11));
+		CompletableFuture<BookingResult> after = engine.submit(request(3L, 12));
+		release.countDown();
+
+		assertTrue(first.get(5, TimeUnit.SECONDS).isBooked());
+		assertTrue(before.get(5, TimeUnit.SECONDS).isBooked());
+		assertTrue(after.get(5, TimeUnit.SECONDS).isBooked());
+		ExecutionException error = assertThrows(ExecutionException.class, () -> failing.get(5, TimeUnit.SECONDS));
+		assertInstanceOf(IllegalStateException.class, error.getCause());
+		// The whole batch once, then each of its requests alone
+		assertEquals(List.of(1, 3, 1, 1, 1), calls.stream().map(List::size).toList());
+	}
+
+	@Test
+	void aBookingStillQueuedAtTheTimeoutIsWithdrawn() throws Exception {
+		start(200);
+		CompletableFuture<BookingResult> first = engine.submit(request(1L, 9));
+		awaitCalls(1);
+
+		IllegalStateException error = assertThrows(IllegalStateException.class,
+				() -> engine.book(2L, DOCTOR_ID, slot(10)));
+		assertTrue(error.getMessage().contains("no appointment was made"));
+
+		release.countDown();
+		assertTrue(first.get(5, TimeUnit.SECONDS).isBooked());
+		// Let the lane drain its queue; the withdrawn request must never reach the service
+		engine.submit(request(3L, 11)).get(5, TimeUnit.SECONDS);
+		assertFalse(calls.stream().flatMap(List::stream).anyMatch(request -> request.patientId().equals(2L)));
+	}
+
+	@Test
+	void stopFailsQueuedBookings() throws Exception {
+		start(10_000);
+		CompletableFuture<BookingResult> first = engine.submit(request(1L, 9));
+		awaitCalls(1);
+		List<CompletableFuture<BookingResult>> queued = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			queued.add(engine.submit(request(2L + i, 10 + i)));
+		}
+
+		engine.stop();
+
+		assertTrue(first.get(5, TimeUnit.SECONDS).isBooked());
+		for (CompletableFuture<BookingResult> future : queued) {
+			assertShuttingDown(future);
+		}
+		assertShuttingDown(engine.submit(request(9L, 20)));
+	}
+
+	private void start(long timeoutMillis) {
+		AppointmentRepository appointments = (AppointmentRepository) Proxy.newProxyInstance(
+				getClass().getClassLoader(), new Class<?>[] {AppointmentRepository.class}, (proxy, method, args) -> {
+					if (method.getName().equals("findScheduledTimes")) {
+						return List.of();
+					}
+					throw new UnsupportedOperationException(method.getName());
+				});
+		BookingService bookings = new BookingService(null, null, null, null, null) {
+			@Override
+			public List<BookingResult> bookBatch(List<BookingRequest> requests) {
+				calls.add(List.copyOf(requests));
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					// stop() interrupts the lane; let this batch finish regardless
+					Thread.currentThread().interrupt();
+				}
+				if (requests.stream().anyMatch(request -> request.patientId().equals(FAILING_PATIENT_ID))) {
+					throw new IllegalStateException("Patient row is locked");
+				}
+				return requests.stream().map(request -> new BookingResult(request, new Appointment(), null)).toList();
+			}
+		};
+		engine = new BookingEngine(bookings, appointments, 1, 200, timeoutMillis, 30);
+		engine.start();
+	}
+
+	private void awaitCalls(int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (calls.size() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertEquals(count, calls.size());
+	}
+
+	private static void assertShuttingDown(CompletableFuture<BookingResult> future) {
+		ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+		assertInstanceOf(IllegalStateException.class, error.getCause());
+		assertTrue(error.getCause().getMessage().contains("shutting down"));
+	}
+
+	private static BookingRequest request(Long patientId, int hour) {
+		return new BookingRequest(patientId, DOCTOR_ID, slot(hour));
+	}
+
+	private static LocalDateTime slot(int hour) {
+		return LocalDateTime.now().plusDays(1).withHour(hour).withMinute(0).withSecond(0).withNano(0);
+	}
+}
@@ -0,0 +1,55 @@
+package com.example.healthcaresystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ClinicalNoteIndexTests {
+
+	private ClinicalNoteIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new ClinicalNoteIndex(null, null, false);
+		index.put(10L, 1L, "Amoxicillin 500mg three times daily for 7 days");
+		index.put(11L, 1L, "Ibuprofen 400mg as needed. Review in two weeks.");
+		index.put(12L, 1L, "Amoxicillin allergy suspected; switched to azithromycin. Amoxicillin stopped.");
+		index.put(20L, 2L, "Amoxicillin 250mg");
+	}
+
+	@Test
+	void searchIsScopedToTheDoctor() {
+		assertEquals(List.of(12L, 10L), ids(index.search(1L, "AMOXICILLIN", 10)));
+		assertEquals(List.of(20L), ids(index.search(2L, "amoxicillin", 10)));
+		assertEquals(List.of(), ids(index.search(3L, "amoxicillin", 10)));
+	}
+
+	@Test
+	void rarerAndRepeatedTermsRankHigher() {
+		assertEquals(List.of(10L, 11L, 12L), ids(index.search(1L, "amoxicillin, 500mg ibuprofen", 10)));
+		assertEquals(List.of(10L), ids(index.search(1L, "amoxicillin 500mg", 1)));
+	}
+
+	@Test
+	void reindexingReplacesOldTerms() {
+		index.put(10L, 1L, "Paracetamol 1g");
+		assertEquals(List.of(12L), ids(index.search(1L, "amoxicillin", 10)));
+		assertEquals(List.of(10L), ids(index.search(1L, "paracetamol", 10)));
+
+		index.put(10L, 1L, "  ");
+		assertEquals(List.of(), ids(index.search(1L, "paracetamol", 10)));
+		assertEquals(3, index.size());
+	}
+
+	@Test
+	void tokenizesOnNonAlphanumerics() {
+		assertEquals(List.of("amoxicillin", "500mg", "bid"), ClinicalNoteIndex.tokenize("Amoxicillin-500mg, b.i.d / BID"));
+	}
+
+	private static List<Long> ids(List<ClinicalNoteIndex.Hit> hits) {
+		return hits.stream().map(ClinicalNoteIndex.Hit::appointmentId).toList();
+	}
+}
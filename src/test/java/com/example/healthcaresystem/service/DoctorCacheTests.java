@@ -0,0 +1,73 @@
+package com.example.healthcaresystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.healthcaresystem.model.Doctor;
+import com.example.healthcaresystem.model.Patient;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class DoctorCacheTests {
+
+	@Autowired
+	private UnifiedUserDetailsService userService;
+
+	@Autowired
+	private AvailabilityService availabilityService;
+
+	@Autowired
+	private BookingService bookingService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void availabilityReadsTheDoctorFromTheCache() {
+		Doctor doctor = new Doctor("Dr Cache", "Cardiology", "cache.doctor@example.com", "1", "pw");
+		userService.addDoctor(doctor);
+		Patient patient = new Patient("Pat Cache", "cache.patient@example.com", "1", LocalDateTime.now().toLocalDate().minusYears(30), "pw");
+		userService.addPatient(patient);
+		LocalDateTime time = LocalDateTime.now().plusDays(2).truncatedTo(ChronoUnit.HOURS);
+		availabilityService.addSlot(doctor.getId(), time);
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		availabilityService.availability(doctor.getId(), LocalDateTime.now());
+		long hits = statistics.getDomainDataRegionStatistics(Doctor.CACHE_REGION).getHitCount();
+
+		assertEquals(List.of(time), availabilityService.availability(doctor.getId(), LocalDateTime.now()).openTimes());
+		assertTrue(statistics.getDomainDataRegionStatistics(Doctor.CACHE_REGION).getHitCount() > hits);
+
+		// Slots aren't cached, so a booking shows up on the next read
+		assertTrue(bookingService.bookBatch(List.of(
+				new BookingService.BookingRequest(patient.getId(), doctor.getId(), time))).get(0).isBooked());
+		assertEquals(List.of(), availabilityService.availability(doctor.getId(), LocalDateTime.now()).openTimes());
+	}
+
+	@Test
+	void doctorChangesAreNeverServedStaleFromTheCache() {
+		Doctor doctor = new Doctor("Dr Rehash", "Cardiology", "rehash.doctor@example.com", "1", "pw");
+		userService.addDoctor(doctor);
+		String oldHash = availabilityService.availability(doctor.getId(), LocalDateTime.now()).doctor().getPassword();
+
+		// The upgrade-on-login path rewrites the doctor's hash after it has been cached
+		userService.updatePassword(userService.loadUserByUsername("rehash.doctor@example.com"), "rehashed");
+
+		String cachedHash = availabilityService.availability(doctor.getId(), LocalDateTime.now()).doctor().getPassword();
+		assertTrue(!oldHash.equals(cachedHash));
+		assertEquals("rehashed", cachedHash);
+	}
+}
@@ -0,0 +1,75 @@
+package com.example.healthcaresystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.healthcaresystem.model.Doctor;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class DoctorCalendarConcurrencyTests {
+
+	// Fewer than the connection pool, so every writer holds a connection at once
+	private static final int THREADS = 8;
+
+	@Autowired
+	private UnifiedUserDetailsService userService;
+
+	@Autowired
+	private AvailabilityService availabilityService;
+
+	@Autowired
+	private DoctorCalendarService calendarService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void concurrentFirstSlotsOfADayShareOneCalendarRow() throws Exception {
+		Doctor doctor = new Doctor("Dr Calendar", "Cardiology", "calendar.doctor@example.com", "1", "pw");
+		userService.addDoctor(doctor);
+		LocalDate day = LocalDate.now().plusDays(4);
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		List<LocalDateTime> times = new ArrayList<>();
+		try {
+			for (int i = 0; i < THREADS; i++) {
+				LocalDateTime time = day.atTime(9, 0).plusMinutes(15L * i);
+				times.add(time);
+				futures.add(executor.submit(() -> {
+					start.await();
+					availabilityService.addSlot(doctor.getId(), time);
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(1, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM doctor_day_calendar WHERE doctor_id = ? AND calendar_day = ?",
+				Integer.class, doctor.getId(), day));
+		assertEquals(times, calendarService.openTimes(doctor.getId(), day.atStartOfDay()));
+	}
+}
@@ -0,0 +1,74 @@
+package com.example.healthcaresystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DoctorResponseCacheTests {
+
+	private SimpleMeterRegistry registry;
+	private DoctorResponseCache cache;
+	private AtomicInteger loads;
+
+	@BeforeEach
+	void setUp() {
+		registry = new SimpleMeterRegistry();
+		cache = new DoctorResponseCache(new ObjectMapper(), registry, 1 << 20, Duration.ofMinutes(10));
+		loads = new AtomicInteger();
+	}
+
+	@Test
+	void hitsReturnTheSerializedBytesWithoutLoading() {
+		byte[] first = cache.get("doctor/1", () -> load("Dr A"));
+		byte[] second = cache.get("doctor/1", () -> load("Dr B"));
+
+		assertEquals("{\"name\":\"Dr A\"}", new String(first, StandardCharsets.UTF_8));
+		assertArrayEquals(first, second);
+		assertEquals(1, loads.get());
+		assertEquals(0.5, registry.get("doctor.responses.hit.ratio").gauge().value());
+	}
+
+	@Test
+	void missingValuesAreNotCached() {
+		assertNull(cache.get("doctor/2", () -> null));
+		cache.get("doctor/2", () -> load("Dr A"));
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	void invalidationDropsCachedResponses() {
+		cache.get("doctor/1", () -> load("Dr A"));
+		cache.invalidateAll();
+		byte[] body = cache.get("doctor/1", () -> load("Dr B"));
+
+		assertEquals("{\"name\":\"Dr B\"}", new String(body, StandardCharsets.UTF_8));
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void responsesLoadedAcrossAnInvalidationAreNotKept() {
+		cache.get("doctor/1", () -> {
+			cache.invalidateAll();
+			return load("Dr A");
+		});
+		cache.get("doctor/1", () -> load("Dr B"));
+		assertEquals(2, loads.get());
+	}
+
+	private Map<String, String> load(String name) {
+		loads.incrementAndGet();
+		return Map.of("name", name);
+	}
+}
@@ -0,0 +1,63 @@
+package com.example.healthcaresystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DoctorSearchIndexTests {
+
+	private DoctorSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new DoctorSearchIndex(null);
+		index.put(1L, "Cardiology", "Alice Smith");
+		index.put(2L, "Pediatric Cardiology", "Bob Jones");
+		index.put(3L, "Dermatology", "Carol Smithers");
+		index.put(4L, "cardiology", "Dan Brown");
+	}
+
+	@Test
+	void matchesSubstringsIgnoringCase() {
+		assertEquals(List.of(1L, 2L, 4L), index.search("CARDIO", null));
+		assertEquals(List.of(1L, 2L, 3L, 4L), index.search("logy", null));
+		assertEquals(List.of(2L), index.search("ric card", null));
+		assertEquals(List.of(), index.search("neurology", null));
+	}
+
+	@Test
+	void shortTermsUseExactGramLookup() {
+		assertEquals(List.of(3L), index.search("de", null));
+		assertEquals(List.of(1L, 2L, 3L, 4L), index.search("o", null));
+	}
+
+	@Test
+	void trigramCandidatesAreVerified() {
+		// Every trigram of the term occurs in "abcabd", but the term itself doesn't
+		index.put(5L, "abcabd", "Eve");
+		assertEquals(List.of(), index.search("abcabcabd", null));
+		assertEquals(List.of(5L), index.search("cabd", null));
+		assertEquals(List.of(), index.search("ogyc", null));
+	}
+
+	@Test
+	void combinesSpecializationAndName() {
+		assertEquals(List.of(1L), index.search("cardio", "smith"));
+		assertEquals(List.of(1L, 3L), index.search(null, "smith"));
+		assertEquals(List.of(1L, 2L, 3L, 4L), index.search(" ", null));
+	}
+
+	@Test
+	void reindexingReplacesOldValues() {
+		index.put(3L, "Cardiology", "Carol Smithers");
+		assertEquals(List.of(), index.search("derma", null));
+		assertEquals(List.of(1L, 2L, 3L, 4L), index.search("cardio", null));
+
+		index.remove(1L);
+		assertEquals(List.of(2L, 3L, 4L), index.search("cardio", null));
+		assertEquals(3, index.size());
+	}
+}
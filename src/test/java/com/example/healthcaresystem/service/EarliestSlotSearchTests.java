@@ -0,0 +1,106 @@
+package com.example.healthcaresystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.healthcaresystem.model.DoctorDayCalendar;
+
+// Own database: ten thousand doctors would slow down every other test sharing the default one
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:earliest-slots;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE")
+@ActiveProfiles("h2")
+class EarliestSlotSearchTests {
+
+	private static final int COMMON_DOCTORS = 9_990;
+	private static final int RARE_DOCTORS = 10;
+	private static final int COMMON_DAYS = 14;
+	private static final int RARE_DAY_OFFSET = 60;
+	private static final int RUNS = 20;
+
+	@Autowired
+	private AvailabilityService availabilityService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private LocalDate firstDay;
+
+	@BeforeEach
+	void setUp() {
+		firstDay = LocalDate.now().plusDays(1);
+		if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM doctor", Integer.class) > 0) {
+			return;
+		}
+		List<Object[]> doctors = new ArrayList<>();
+		for (int i = 0; i < COMMON_DOCTORS + RARE_DOCTORS; i++) {
+			String specialization = i < COMMON_DOCTORS ? "General Practice" : "Neurosurgery";
+			doctors.add(new Object[] {"Dr " + i, specialization, "earliest" + i + "@example.com"});
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO doctor (name, specialization, email) VALUES (?, ?, ?)", doctors);
+
+		// Common doctors are open 09:00-11:45 every day for two weeks; the rare ones only two months out
+		long morning = 0;
+		for (int slot = DoctorDayCalendar.slotIndex(LocalTime.of(9, 0)); slot < DoctorDayCalendar.slotIndex(LocalTime.NOON); slot++) {
+			morning |= DoctorDayCalendar.lowBit(slot);
+		}
+		List<Object[]> calendars = new ArrayList<>();
+		for (Long doctorId : jdbcTemplate.queryForList("SELECT id FROM doctor WHERE specialization = 'General Practice'", Long.class)) {
+			for (int day = 0; day < COMMON_DAYS; day++) {
+				calendars.add(new Object[] {doctorId, Date.valueOf(firstDay.plusDays(day)), morning});
+			}
+		}
+		for (Long doctorId : jdbcTemplate.queryForList("SELECT id FROM doctor WHERE specialization = 'Neurosurgery'", Long.class)) {
+			calendars.add(new Object[] {doctorId, Date.valueOf(firstDay.plusDays(RARE_DAY_OFFSET)), morning});
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO doctor_day_calendar (doctor_id, calendar_day, open_low, open_high, "
+				+ "booked_low, booked_high) VALUES (?, ?, ?, 0, 0, 0)", calendars);
+	}
+
+	@Test
+	void commonSpecializationStopsAtTheFirstDay() {
+		List<AvailabilityService.OpenSlot> slots = timed("common", () -> availabilityService.earliestOpenSlots(
+				"General Practice", firstDay.atStartOfDay(), firstDay.plusDays(90).atStartOfDay(), 20));
+
+		assertEquals(20, slots.size());
+		for (AvailabilityService.OpenSlot slot : slots) {
+			assertEquals(firstDay.atTime(9, 0), slot.availableTime());
+		}
+	}
+
+	@Test
+	void rareSpecializationIsFoundFarOut() {
+		List<AvailabilityService.OpenSlot> slots = timed("rare", () -> availabilityService.earliestOpenSlots(
+				"Neurosurgery", firstDay.atStartOfDay(), firstDay.plusDays(90).atStartOfDay(), 20));
+
+		assertEquals(20, slots.size());
+		LocalDateTime rareDay = firstDay.plusDays(RARE_DAY_OFFSET).atTime(9, 0);
+		assertEquals(rareDay, slots.get(0).availableTime());
+		assertEquals(rareDay.plusMinutes(15), slots.get(RARE_DOCTORS).availableTime());
+	}
+
+	// Runs the search once to warm up, then reports the mean of RUNS timed searches
+	private List<AvailabilityService.OpenSlot> timed(String label, java.util.function.Supplier<List<AvailabilityService.OpenSlot>> search) {
+		List<AvailabilityService.OpenSlot> slots = search.get();
+		long started = System.nanoTime();
+		for (int i = 0; i < RUNS; i++) {
+			search.get();
+		}
+		long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started) / RUNS;
+		System.out.printf("Earliest %s slots across %d doctors: %d us per search%n",
+				label, COMMON_DOCTORS + RARE_DOCTORS, micros);
+		return slots;
+	}
+}
@@ -0,0 +1,116 @@
+package com.example.healthcaresystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+class JwtServiceTests {
+
+	private static final int RUNS = 20_000;
+
+	@Test
+	void repeatedParseIsServedFromCache() {
+		JwtService jwtService = new JwtService(10);
+		String token = jwtService.generateToken("cached@example.com", "ROLE_PATIENT", 1L);
+
+		assertSame(jwtService.parseToken(token), jwtService.parseToken(token));
+		assertEquals(1, jwtService.cachedTokenCount());
+	}
+
+	@Test
+	void expiredTokenIsNotServedFromCache() throws Exception {
+		JwtService jwtService = new JwtService(10);
+		// JWT expiry has second precision, so round up to the next whole second
+		long expiresAt = (System.currentTimeMillis() / 1000 + 2) * 1000;
+		String token = signedToken("expiring@example.com", expiresAt);
+
+		assertEquals("expiring@example.com", jwtService.parseToken(token).getSubject());
+		assertEquals(1, jwtService.cachedTokenCount());
+
+		Thread.sleep(expiresAt - System.currentTimeMillis() + 100);
+
+		assertThrows(ExpiredJwtException.class, () -> jwtService.parseToken(token));
+		assertEquals(0, jwtService.cachedTokenCount());
+	}
+
+	@Test
+	void cacheNeverGrowsPastItsBound() {
+		JwtService jwtService = new JwtService(3);
+		for (int i = 0; i < 20; i++) {
+			String token = jwtService.generateToken("user" + i + "@example.com", "ROLE_PATIENT", (long) i);
+			assertEquals("user" + i + "@example.com", jwtService.parseToken(token).getSubject());
+			assertTrue(jwtService.cachedTokenCount() <= 3);
+		}
+	}
+
+	@Test
+	void hotTokenSurvivesAStreamOfOneOffTokens() {
+		JwtService jwtService = new JwtService(3);
+		String hot = jwtService.generateToken("hot@example.com", "ROLE_PATIENT", 1L);
+		Claims claims = jwtService.parseToken(hot);
+
+		for (int i = 0; i < 50; i++) {
+			jwtService.parseToken(jwtService.generateToken("once" + i + "@example.com", "ROLE_PATIENT", (long) i));
+			assertSame(claims, jwtService.parseToken(hot));
+		}
+		assertTrue(jwtService.cachedTokenCount() <= 3);
+	}
+
+	@Test
+	void cachedParseIsFasterThanVerifying() {
+		JwtService cached = new JwtService(10);
+		JwtService uncached = new JwtService(0);
+		String token = cached.generateToken("timed@example.com", "ROLE_PATIENT", 1L);
+
+		long cachedNanos = timed("cached", () -> cached.parseToken(token));
+		long verifiedNanos = timed("verified", () -> uncached.parseToken(token));
+
+		// A hit costs one SHA-256 and a lookup; verifying also decodes, parses JSON and checks the HMAC
+		assertTrue(cachedNanos * 2 < verifiedNanos, cachedNanos + " ns cached vs " + verifiedNanos + " ns verified");
+	}
+
+	@Test
+	void disabledCacheStoresNothing() {
+		JwtService jwtService = new JwtService(0);
+		String token = jwtService.generateToken("uncached@example.com", "ROLE_DOCTOR", 2L);
+
+		assertEquals("uncached@example.com", jwtService.parseToken(token).getSubject());
+		assertEquals(0, jwtService.cachedTokenCount());
+	}
+
+	// Runs the parse RUNS times to warm up, then reports the mean of RUNS timed parses
+	private static long timed(String label, Runnable parse) {
+		for (int i = 0; i < RUNS; i++) {
+			parse.run();
+		}
+		long started = System.nanoTime();
+		for (int i = 0; i < RUNS; i++) {
+			parse.run();
+		}
+		long nanos = (System.nanoTime() - started) / RUNS;
+		System.out.printf("JWT parse, %s: %d us per token%n", label, TimeUnit.NANOSECONDS.toMicros(nanos));
+		return nanos;
+	}
+
+	private static String signedToken(String email, long expiresAt) {
+		return Jwts.builder()
+				.setSubject(email)
+				.setIssuedAt(new Date())
+				.setExpiration(new Date(expiresAt))
+				.signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(JwtService.SECRET)), SignatureAlgorithm.HS256)
+				.compact();
+	}
+}
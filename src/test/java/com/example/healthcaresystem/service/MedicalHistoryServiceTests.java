@@ -0,0 +1,95 @@
+package com.example.healthcaresystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.healthcaresystem.model.MedicalHistoryEntry;
+import com.example.healthcaresystem.model.Patient;
+import com.example.healthcaresystem.repo.MedicalHistoryEntryRepository;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class MedicalHistoryServiceTests {
+
+	@Autowired
+	private MedicalHistoryService historyService;
+
+	@Autowired
+	private MedicalHistoryEntryRepository entryRepository;
+
+	@Autowired
+	private UnifiedUserDetailsService userService;
+
+	private Long patientId;
+
+	@BeforeEach
+	void setUp() {
+		Patient patient = new Patient("Pat History", "history." + System.nanoTime() + "@example.com", "1",
+				LocalDate.of(1980, 5, 1), "pw");
+		userService.addPatient(patient);
+		patientId = patient.getId();
+	}
+
+	@Test
+	void repeatedAdditionsStoreOnlyWhatWasAdded() {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 200; i++) {
+			text.append("Visit ").append(i).append(": blood pressure normal, continue current medication.\n");
+			historyService.append(patientId, text.toString(), null);
+		}
+
+		List<MedicalHistoryEntry> entries = entries();
+		assertEquals(200, entries.size());
+		assertEquals(MedicalHistoryEntry.Kind.REPLACE, entries.get(0).getKind());
+		assertEquals(MedicalHistoryEntry.Kind.APPEND, entries.get(199).getKind());
+		assertEquals(text.length(), entries.stream().mapToInt(entry -> entry.getContent().length()).sum());
+		assertEquals(text.toString(), historyService.currentText(patientId));
+	}
+
+	@Test
+	void rewritesStartOverFromTheFullText() {
+		historyService.append(patientId, "Asthma.", null);
+		historyService.append(patientId, "Asthma. Penicillin allergy.", 1);
+		historyService.append(patientId, "Asthma (resolved). Penicillin allergy.", 2);
+		historyService.append(patientId, "Asthma (resolved). Penicillin allergy. Statins.", 3);
+
+		assertEquals(List.of(MedicalHistoryEntry.Kind.REPLACE, MedicalHistoryEntry.Kind.APPEND,
+				MedicalHistoryEntry.Kind.REPLACE, MedicalHistoryEntry.Kind.APPEND),
+				entries().stream().map(MedicalHistoryEntry::getKind).toList());
+		assertEquals(" Statins.", entries().get(3).getContent());
+		assertEquals("Asthma (resolved). Penicillin allergy. Statins.", historyService.currentText(patientId));
+	}
+
+	@Test
+	void unchangedTextAddsNoVersionAndStaleVersionsAreRefused() {
+		MedicalHistoryEntry first = historyService.append(patientId, "Asthma.", null);
+		MedicalHistoryEntry same = historyService.append(patientId, "Asthma.", 1);
+
+		assertEquals(first.getId(), same.getId());
+		assertEquals(1, entries().size());
+		IllegalStateException stale = assertThrows(IllegalStateException.class,
+				() -> historyService.append(patientId, "Asthma. Hay fever.", 0));
+		assertEquals("Medical history is at version 1, not 0", stale.getMessage());
+		assertNull(historyService.currentText(-1L));
+	}
+
+	// Oldest first
+	private List<MedicalHistoryEntry> entries() {
+		List<MedicalHistoryEntry> entries = new ArrayList<>(entryRepository.findRecent(patientId, PageRequest.of(0, 1000)).getContent());
+		Collections.reverse(entries);
+		return entries;
+	}
+}
@@ -0,0 +1,113 @@
+package com.example.healthcaresystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.healthcaresystem.model.Doctor;
+import com.example.healthcaresystem.model.Patient;
+import com.example.healthcaresystem.repo.AppointmentRepository;
+import com.example.healthcaresystem.repo.DoctorDayCalendarRepository;
+import com.example.healthcaresystem.repo.DoctorRepository;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class ResourceVersionsTests {
+
+	@Autowired
+	private ResourceVersions versions;
+
+	@Autowired
+	private UnifiedUserDetailsService userService;
+
+	@Autowired
+	private AvailabilityService availabilityService;
+
+	@Autowired
+	private BookingService bookingService;
+
+	@Autowired
+	private DoctorRepository doctorRepository;
+
+	@Autowired
+	private DoctorDayCalendarRepository calendarRepository;
+
+	@Autowired
+	private AppointmentRepository appointmentRepository;
+
+	private Long doctorId;
+	private Long patientId;
+	private final LocalDateTime now = LocalDateTime.of(2030, 1, 7, 9, 45);
+
+	@BeforeEach
+	void setUp() {
+		long unique = System.nanoTime();
+		Doctor doctor = new Doctor("Dr Tag", "Cardiology", "tag.doctor." + unique + "@example.com", "1", "pw");
+		userService.addDoctor(doctor);
+		doctorId = doctor.getId();
+		Patient patient = new Patient("Pat Tag", "tag.patient." + unique + "@example.com", "1", LocalDate.of(1980, 5, 1), "pw");
+		userService.addPatient(patient);
+		patientId = patient.getId();
+	}
+
+	@Test
+	void tagsChangeOnlyWithTheRowsOfTheirResource() {
+		LocalDateTime time = LocalDateTime.now().plusDays(2).truncatedTo(ChronoUnit.HOURS);
+		String doctor = versions.doctorTag(doctorId);
+		String availability = versions.availabilityTag(doctorId, now);
+		String appointments = versions.patientAppointmentsTag(patientId);
+
+		availabilityService.addSlot(doctorId, time);
+		String opened = versions.availabilityTag(doctorId, now);
+		assertNotEquals(availability, opened);
+		assertEquals(appointments, versions.patientAppointmentsTag(patientId));
+
+		availabilityService.addSlot(doctorId, time.plusHours(1));
+		String openedTwice = versions.availabilityTag(doctorId, now);
+		assertNotEquals(opened, openedTwice);
+
+		BookingService.BookingResult booked = bookingService.bookBatch(List.of(
+				new BookingService.BookingRequest(patientId, doctorId, time))).get(0);
+		assertTrue(booked.isBooked());
+		String bookedAvailability = versions.availabilityTag(doctorId, now);
+		String bookedAppointments = versions.patientAppointmentsTag(patientId);
+		assertNotEquals(openedTwice, bookedAvailability);
+		assertNotEquals(appointments, bookedAppointments);
+
+		bookingService.cancel(booked.appointment().getId());
+		assertNotEquals(bookedAvailability, versions.availabilityTag(doctorId, now));
+		assertNotEquals(bookedAppointments, versions.patientAppointmentsTag(patientId));
+
+		assertEquals(doctor, versions.doctorTag(doctorId));
+	}
+
+	@Test
+	void everyInstanceDerivesTheSameTags() {
+		availabilityService.addSlot(doctorId, LocalDateTime.now().plusDays(2).truncatedTo(ChronoUnit.HOURS));
+		ResourceVersions otherInstance = new ResourceVersions(doctorRepository, calendarRepository, appointmentRepository);
+
+		assertEquals(versions.doctorTag(doctorId), otherInstance.doctorTag(doctorId));
+		assertEquals(versions.availabilityTag(doctorId, now), otherInstance.availabilityTag(doctorId, now));
+		assertEquals(versions.patientAppointmentsTag(patientId), otherInstance.patientAppointmentsTag(patientId));
+	}
+
+	@Test
+	void availabilityTagsMoveAtSlotBoundaries() {
+		String tag = versions.availabilityTag(doctorId, now);
+		assertTrue(tag.matches("\"[^\"]+\""), tag);
+
+		assertEquals(tag, versions.availabilityTag(doctorId, now.plusMinutes(14).plusSeconds(59)));
+		assertNotEquals(tag, versions.availabilityTag(doctorId, now.plusMinutes(15)));
+	}
+}
@@ -0,0 +1,112 @@
+package com.example.healthcaresystem.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SingleFlightTests {
+
+	private static final int CALLERS = 16;
+
+	private SimpleMeterRegistry registry;
+	private SingleFlight<String, String> flight;
+	private ExecutorService executor;
+
+	@BeforeEach
+	void setUp() {
+		registry = new SimpleMeterRegistry();
+		flight = new SingleFlight<>("test", registry);
+		executor = Executors.newFixedThreadPool(CALLERS);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void concurrentCallersShareOneLoad() throws Exception {
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+
+		List<Future<String>> results = new ArrayList<>();
+		for (int i = 0; i < CALLERS; i++) {
+			results.add(executor.submit(() -> flight.load("doctor-1", () -> {
+				loads.incrementAndGet();
+				await(release);
+				return "slots";
+			})));
+		}
+		// Hold the load until every other caller has joined it
+		while (count("collapsed") < CALLERS - 1) {
+			Thread.sleep(1);
+		}
+		release.countDown();
+
+		for (Future<String> result : results) {
+			assertEquals("slots", result.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, loads.get());
+		assertEquals(1, count("loaded"));
+	}
+
+	@Test
+	void loadsAfterCompletionRunAgain() {
+		AtomicInteger loads = new AtomicInteger();
+		flight.load("doctor-1", () -> "v" + loads.incrementAndGet());
+		assertEquals("v2", flight.load("doctor-1", () -> "v" + loads.incrementAndGet()));
+		assertEquals(0, count("collapsed"));
+	}
+
+	@Test
+	void collapsedCallersGetTheLeadersException() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		NoSuchElementException failure = new NoSuchElementException("Doctor not found");
+
+		Future<String> leader = executor.submit(() -> flight.load("doctor-9", () -> {
+			await(release);
+			throw failure;
+		}));
+		while (count("loaded") < 1) {
+			Thread.sleep(1);
+		}
+		Future<String> follower = executor.submit(() -> flight.load("doctor-9", () -> "unexpected"));
+		while (count("collapsed") < 1) {
+			Thread.sleep(1);
+		}
+		release.countDown();
+
+		Exception leaderError = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+		Exception followerError = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+		assertSame(failure, leaderError.getCause());
+		assertSame(failure, followerError.getCause());
+	}
+
+	private double count(String result) {
+		return registry.get("coalesced.loads").tag("name", "test").tag("result", result).counter().count();
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}